@@ -0,0 +1,42 @@
+package id.my.hendisantika.postgis.benchmark;
+
+import id.my.hendisantika.postgis.service.WilayahService;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.25
+ * To change this template use File | Settings | File Templates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AllWithBoundariesBenchmark {
+
+    private WilayahService wilayahService;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        wilayahService = Fixtures.wilayahService();
+        objectMapper = JsonMapper.builder().build();
+    }
+
+    // What /wilayah/api/all costs besides the query: the projection rows from the service, serialized to JSON
+    @Benchmark
+    public byte[] getAllWithBoundaries() {
+        return objectMapper.writeValueAsBytes(wilayahService.getAllProvinsiDetail());
+    }
+}
@@ -0,0 +1,43 @@
+package id.my.hendisantika.postgis.benchmark;
+
+import id.my.hendisantika.postgis.dto.BoundaryData;
+import id.my.hendisantika.postgis.service.WilayahService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.05
+ * To change this template use File | Settings | File Templates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoundaryDataBenchmark {
+
+    // One kode per branch of getBoundaryData: provinsi, kabupaten, kecamatan, desa
+    @Param({Fixtures.PROVINSI_KODE, Fixtures.KABUPATEN_KODE, Fixtures.KECAMATAN_KODE, Fixtures.DESA_KODE})
+    public String kode;
+
+    private WilayahService wilayahService;
+
+    @Setup
+    public void setUp() {
+        wilayahService = Fixtures.wilayahService();
+    }
+
+    @Benchmark
+    public Optional<BoundaryData> getBoundaryData() {
+        return wilayahService.getBoundaryData(kode);
+    }
+}
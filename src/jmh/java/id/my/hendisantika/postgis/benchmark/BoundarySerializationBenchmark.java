@@ -0,0 +1,69 @@
+package id.my.hendisantika.postgis.benchmark;
+
+import id.my.hendisantika.postgis.dto.BoundaryData;
+import id.my.hendisantika.postgis.service.GeoJsonFeatureWriter;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.10
+ * To change this template use File | Settings | File Templates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoundarySerializationBenchmark {
+
+    @Param({"kabupaten", "kecamatan", "desa"})
+    public String level;
+
+    private ObjectMapper objectMapper;
+    private BoundaryData boundaryData;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        boundaryData = BoundaryData.builder()
+                .kode(Fixtures.KECAMATAN_KODE)
+                .nama("Banjaran")
+                .level("Kecamatan")
+                .lat(-7.0454)
+                .lng(107.5896)
+                .coordinates(Fixtures.geoJson(level))
+                .tolerance(0.0)
+                .build();
+        out = new ByteArrayOutputStream(256 * 1024);
+    }
+
+    // /wilayah/api/boundary today: the geometry is a JSON string, so every quote is escaped
+    @Benchmark
+    public byte[] boundaryDataWithEscapedCoordinates() {
+        return objectMapper.writeValueAsBytes(boundaryData);
+    }
+
+    // Baseline: the same geometry copied verbatim into a GeoJSON Feature
+    @Benchmark
+    public int featureWithRawGeometry() {
+        out.reset();
+        try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(objectMapper, out, true)) {
+            writer.writeFeature(boundaryData.getKode(), boundaryData.getNama(), boundaryData.getLevel(),
+                    boundaryData.getCoordinates());
+            writer.finish();
+        }
+        return out.size();
+    }
+}
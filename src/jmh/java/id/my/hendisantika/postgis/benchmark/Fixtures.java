@@ -0,0 +1,149 @@
+package id.my.hendisantika.postgis.benchmark;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.ProvinsiDetail;
+import id.my.hendisantika.postgis.entity.WilayahLevel12;
+import id.my.hendisantika.postgis.entity.WilayahLevel34;
+import id.my.hendisantika.postgis.repository.SimplifiedGeometryRepository;
+import id.my.hendisantika.postgis.repository.SubDistrictRepository;
+import id.my.hendisantika.postgis.repository.VillageRepository;
+import id.my.hendisantika.postgis.repository.WilayahBoundaryRepository;
+import id.my.hendisantika.postgis.repository.WilayahHierarchyRepository;
+import id.my.hendisantika.postgis.repository.WilayahLevel12Repository;
+import id.my.hendisantika.postgis.repository.WilayahLevel34Repository;
+import id.my.hendisantika.postgis.service.QueryMetrics;
+import id.my.hendisantika.postgis.service.SingleFlight;
+import id.my.hendisantika.postgis.service.WilayahService;
+import id.my.hendisantika.postgis.service.WilayahTreeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.00
+ * To change this template use File | Settings | File Templates.
+ */
+final class Fixtures {
+
+    // Synthetic MultiPolygons in ST_AsGeoJSON form (9 decimals) with typical vertex counts:
+    // kabupaten 6000, kecamatan 1500, desa 300
+    static final String KABUPATEN_GEOJSON = load("kabupaten");
+    static final String KECAMATAN_GEOJSON = load("kecamatan");
+    static final String DESA_GEOJSON = load("desa");
+
+    static final String PROVINSI_KODE = "32";
+    static final String KABUPATEN_KODE = "32.04";
+    static final String KECAMATAN_KODE = "32.04.09";
+    static final String DESA_KODE = "32.04.09.2001";
+
+    private Fixtures() {
+    }
+
+    static String geoJson(String level) {
+        return switch (level) {
+            case "kabupaten" -> KABUPATEN_GEOJSON;
+            case "kecamatan" -> KECAMATAN_GEOJSON;
+            case "desa" -> DESA_GEOJSON;
+            default -> throw new IllegalArgumentException("No fixture for " + level);
+        };
+    }
+
+    /**
+     * WilayahService backed by in-memory repositories answering from the fixtures, so no database is needed.
+     */
+    static WilayahService wilayahService() {
+        Map<String, WilayahLevel12> level12 = Map.of(
+                PROVINSI_KODE, level12(PROVINSI_KODE, "Jawa Barat"),
+                KABUPATEN_KODE, level12(KABUPATEN_KODE, "Kabupaten Bandung"));
+        Map<String, WilayahLevel34> level34 = Map.of(
+                KECAMATAN_KODE, new WilayahLevel34(KECAMATAN_KODE, "Banjaran", KABUPATEN_KODE, -7.0454, 107.5896, null, (short) 3),
+                DESA_KODE, new WilayahLevel34(DESA_KODE, "Kamasan", KECAMATAN_KODE, -7.0398, 107.5851, null, (short) 4));
+        List<ProvinsiDetail> provinsi = provinsiList();
+
+        WilayahLevel12Repository wilayahRepository = stub(WilayahLevel12Repository.class, Map.of(
+                "findById", args -> Optional.ofNullable(level12.get((String) args[0])),
+                "findPathByKode", args -> Optional.empty(),
+                "findAllProvinsiDetails", args -> provinsi));
+        WilayahLevel34Repository wilayahLevel34Repository = stub(WilayahLevel34Repository.class, Map.of(
+                "findById", args -> Optional.ofNullable(level34.get((String) args[0])),
+                "findPathByKode", args -> Optional.empty()));
+        SubDistrictRepository subDistrictRepository = stub(SubDistrictRepository.class, Map.of(
+                "findGeometryAsGeoJSON", args -> KECAMATAN_GEOJSON,
+                "findKabupatenBoundaryAsGeoJSON", args -> KABUPATEN_GEOJSON));
+        VillageRepository villageRepository = stub(VillageRepository.class, Map.of(
+                "findGeometryAsGeoJSON", args -> DESA_GEOJSON));
+        WilayahBoundaryRepository boundaryRepository = stub(WilayahBoundaryRepository.class, Map.of(
+                "findGeoJSONByKode", args -> KABUPATEN_GEOJSON));
+        SimplifiedGeometryRepository simplifiedGeometryRepository = stub(SimplifiedGeometryRepository.class, Map.of(
+                "findGeoJSON", args -> null));
+
+        return new WilayahService(wilayahRepository, wilayahLevel34Repository, subDistrictRepository, villageRepository,
+                boundaryRepository, simplifiedGeometryRepository, stub(WilayahHierarchyRepository.class, Map.of()),
+                new WilayahTreeService(wilayahRepository, wilayahLevel34Repository),
+                new QueryMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry(), new WilayahProperties()),
+                new SingleFlight(new WilayahProperties(), new SimpleMeterRegistry()));
+    }
+
+    // The 38 provinsi rows /wilayah/api/all returns
+    static List<ProvinsiDetail> provinsiList() {
+        List<ProvinsiDetail> provinsi = new ArrayList<>(38);
+        for (int i = 0; i < 38; i++) {
+            String kode = String.valueOf(11 + i);
+            provinsi.add(new ProvinsiDetail(kode, "Provinsi " + kode, "Ibukota " + kode, -6.92, 107.6,
+                    10_000.0 + i * 1_250.5, 1_000_000.0 + i * 250_000));
+        }
+        return provinsi;
+    }
+
+    private static WilayahLevel12 level12(String kode, String nama) {
+        WilayahLevel12 wilayah = new WilayahLevel12();
+        wilayah.setKode(kode);
+        wilayah.setNama(nama);
+        wilayah.setLat(-6.9 - kode.length() * 0.01);
+        wilayah.setLng(107.6);
+        return wilayah;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " fixture";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+    }
+
+    private static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
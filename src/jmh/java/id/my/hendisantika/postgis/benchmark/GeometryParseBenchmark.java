@@ -0,0 +1,52 @@
+package id.my.hendisantika.postgis.benchmark;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.geojson.GeoJsonReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.15
+ * To change this template use File | Settings | File Templates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryParseBenchmark {
+
+    @Param({"kecamatan", "desa"})
+    public String level;
+
+    private String geoJson;
+    private byte[] wkb;
+
+    @Setup
+    public void setUp() throws ParseException {
+        geoJson = Fixtures.geoJson(level);
+        wkb = new WKBWriter().write(new GeoJsonReader().read(geoJson));
+    }
+
+    @Benchmark
+    public Geometry parseGeoJson() throws ParseException {
+        return new GeoJsonReader().read(geoJson);
+    }
+
+    // What the reverse geocoder reads from the database
+    @Benchmark
+    public Geometry parseWkb() throws ParseException {
+        return new WKBReader().read(wkb);
+    }
+}
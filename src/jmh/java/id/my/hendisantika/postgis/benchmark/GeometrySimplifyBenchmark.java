@@ -0,0 +1,48 @@
+package id.my.hendisantika.postgis.benchmark;
+
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.geojson.GeoJsonReader;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.20
+ * To change this template use File | Settings | File Templates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometrySimplifyBenchmark {
+
+    @Param({"kecamatan", "desa"})
+    public String level;
+
+    @Param({"HIGH", "MEDIUM", "LOW"})
+    public GeometryResolution resolution;
+
+    private Geometry geometry;
+
+    @Setup
+    public void setUp() throws ParseException {
+        geometry = new GeoJsonReader().read(Fixtures.geoJson(level));
+    }
+
+    // JTS counterpart of the ST_SimplifyPreserveTopology run that fills wilayah_geometry_simplified
+    @Benchmark
+    public Geometry simplify() {
+        return TopologyPreservingSimplifier.simplify(geometry, resolution.getTolerance());
+    }
+}
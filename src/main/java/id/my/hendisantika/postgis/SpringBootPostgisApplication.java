@@ -2,8 +2,10 @@ package id.my.hendisantika.postgis;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringBootPostgisApplication {
 
     static void main(String[] args) {
@@ -0,0 +1,71 @@
+package id.my.hendisantika.postgis.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.my.hendisantika.postgis.dto.CachedPayload;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 09.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Configuration
+public class CacheConfig {
+
+    // Rough heap cost of a cache node, key and array header, so empty tiles (ocean, outside Indonesia) still
+    // count towards the bound instead of weighing 0, which Caffeine never evicts for size
+    private static final int TILE_ENTRY_OVERHEAD = 64;
+
+    @Bean
+    public Cache<String, byte[]> vectorTileCache(WilayahProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(properties.getTiles().getCacheMaxBytes())
+                .weigher((String key, byte[] tile) -> TILE_ENTRY_OVERHEAD + key.length() + tile.length)
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public Cache<String, CachedPayload> boundaryPayloadCache(WilayahProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(properties.getBoundaryCache().getMaxBytes())
+                .weigher((String key, CachedPayload payload) -> key.length() + payload.getWeight())
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public Cache<String, CachedPayload> viewportCache(WilayahProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(properties.getViewport().getCacheMaxBytes())
+                .weigher((String key, CachedPayload payload) -> key.length() + payload.getWeight())
+                .recordStats()
+                .build();
+    }
+
+    @Bean
+    public Cache<String, CachedPayload> fragmentCache(WilayahProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(properties.getFragmentCache().getMaxBytes())
+                .weigher((String key, CachedPayload payload) -> key.length() + payload.getWeight())
+                .recordStats()
+                .build();
+    }
+
+    // Exposes every Caffeine cache above as cache_gets, cache_evictions, ... tagged with the bean name
+    @Bean
+    public MeterBinder caffeineCacheMetrics(Map<String, Cache<?, ?>> caches) {
+        return registry -> caches.forEach((name, cache) -> CaffeineCacheMetrics.monitor(registry, cache, name));
+    }
+}
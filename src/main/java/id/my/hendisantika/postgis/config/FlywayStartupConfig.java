@@ -0,0 +1,157 @@
+package id.my.hendisantika.postgis.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.25
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Configuration
+public class FlywayStartupConfig {
+
+    // V2-V8, V17-V30 and V32-V45: region INSERT scripts that only add rows to tables the bulk loader also fills
+    private static final String DATA_MIGRATION_MARKER = "__insert_";
+    // Written by checksum-maven-plugin in the startup Maven profile, one "sha256  script" line per migration
+    static final String MIGRATION_CHECKSUMS = "db/migration.sha256";
+    private static final String SELECT_FINGERPRINT = "SELECT fingerprint FROM flyway_fingerprint WHERE id = 1";
+    private static final String UPSERT_FINGERPRINT = """
+            INSERT INTO flyway_fingerprint (id, fingerprint, recorded_at) VALUES (1, ?, now())
+            ON CONFLICT (id) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, recorded_at = EXCLUDED.recorded_at
+            """;
+
+    /**
+     * Migrates as usual and records the build-time fingerprint of the scripts afterwards. With
+     * wilayah.startup.skip-unchanged-migrations a matching fingerprint skips validate and migrate altogether; builds
+     * without the checksum resource always migrate.
+     */
+    @Bean
+    public FlywayMigrationStrategy fingerprintMigrationStrategy(WilayahProperties properties) {
+        return flyway -> {
+            long start = System.nanoTime();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+            String fingerprint = fingerprint();
+            if (fingerprint == null) {
+                if (properties.getStartup().isSkipUnchangedMigrations()) {
+                    log.info("No {} on the classpath (build with -Pstartup), migrating as usual", MIGRATION_CHECKSUMS);
+                }
+            } else if (properties.getStartup().isSkipUnchangedMigrations()
+                    && fingerprint.equals(storedFingerprint(jdbcTemplate))) {
+                log.info("Migration scripts unchanged ({}), Flyway validate and migrate skipped in {} ms",
+                        fingerprint.substring(0, 12), (System.nanoTime() - start) / 1_000_000);
+                return;
+            }
+
+            if (properties.getLoader().isSkipDataMigrations()) {
+                migrateSkippingData(flyway);
+            } else {
+                flyway.migrate();
+            }
+            if (fingerprint == null) {
+                log.info("Flyway migrate done in {} ms", (System.nanoTime() - start) / 1_000_000);
+                return;
+            }
+            jdbcTemplate.update(UPSERT_FINGERPRINT, fingerprint);
+            log.info("Flyway migrate and fingerprint {} done in {} ms",
+                    fingerprint.substring(0, 12), (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+
+    /**
+     * Schema-only migrate of a fresh database for the bulk loader. Pending migrations are applied in runs up to the
+     * last version of each run; runs of data scripts are recorded with their real checksums but not executed, so the
+     * history matches that of a fully migrated database and later starts validate as usual.
+     */
+    static void migrateSkippingData(Flyway flyway) {
+        if (flyway.info().applied().length > 0) {
+            log.warn("wilayah.loader.skip-data-migrations only applies to a fresh database, migrating as usual");
+            flyway.migrate();
+            return;
+        }
+        MigrationInfo[] pending = flyway.info().pending();
+        int from = 0;
+        while (from < pending.length && pending[from].getVersion() != null) {
+            boolean data = isDataMigration(pending[from]);
+            int to = from;
+            while (to + 1 < pending.length && pending[to + 1].getVersion() != null
+                    && isDataMigration(pending[to + 1]) == data) {
+                to++;
+            }
+            Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .target(pending[to].getVersion())
+                    .skipExecutingMigrations(data)
+                    .load()
+                    .migrate();
+            if (data) {
+                log.info("Data migrations V{} to V{} recorded without running them",
+                        pending[from].getVersion(), pending[to].getVersion());
+            }
+            from = to + 1;
+        }
+        // Repeatable migrations, if any
+        flyway.migrate();
+    }
+
+    private static boolean isDataMigration(MigrationInfo migration) {
+        return migration.getScript() != null && migration.getScript().contains(DATA_MIGRATION_MARKER);
+    }
+
+    private static String storedFingerprint(JdbcTemplate jdbcTemplate) {
+        // Absent until V50 has been applied
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('flyway_fingerprint') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(exists)) {
+            return null;
+        }
+        List<String> stored = jdbcTemplate.queryForList(SELECT_FINGERPRINT, String.class);
+        return stored.isEmpty() ? null : stored.getFirst();
+    }
+
+    // SHA-256 over the per-script checksums the startup build wrote, in line order so scan order does not matter
+    static String fingerprint() {
+        ClassPathResource checksums = new ClassPathResource(MIGRATION_CHECKSUMS);
+        if (!checksums.exists()) {
+            return null;
+        }
+        try {
+            List<String> lines = new ArrayList<>(checksums.getContentAsString(StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.isBlank())
+                    .toList());
+            Collections.sort(lines);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String line : lines) {
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + MIGRATION_CHECKSUMS, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
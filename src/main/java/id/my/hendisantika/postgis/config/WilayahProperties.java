@@ -0,0 +1,162 @@
+package id.my.hendisantika.postgis.config;
+
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 09.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@ConfigurationProperties(prefix = "wilayah")
+public class WilayahProperties {
+
+    private final Tiles tiles = new Tiles();
+    private final BoundaryStore boundaryStore = new BoundaryStore();
+    private final BoundaryCache boundaryCache = new BoundaryCache();
+    private final Locate locate = new Locate();
+    private final Features features = new Features();
+    private final Metrics metrics = new Metrics();
+    private final Viewport viewport = new Viewport();
+    private final Nearest nearest = new Nearest();
+    private final Loader loader = new Loader();
+    private final Startup startup = new Startup();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final FragmentCache fragmentCache = new FragmentCache();
+    private final Topology topology = new Topology();
+    private final Stats stats = new Stats();
+    private final Admin admin = new Admin();
+
+    @Data
+    public static class Tiles {
+        // Below this zoom a tile would cover too many kecamatan to render on request
+        private int minZoom = 7;
+        // From this zoom the "auto" layer switches from kecamatan to desa
+        private int desaMinZoom = 12;
+        private int maxZoom = 14;
+        private long cacheMaxBytes = 128L * 1024 * 1024;
+        private Duration cacheControlMaxAge = Duration.ofDays(1);
+    }
+
+    @Data
+    public static class BoundaryStore {
+        // Build wilayah_boundary_1_2 after startup when it is still empty
+        private boolean refreshOnStartup = true;
+    }
+
+    @Data
+    public static class BoundaryCache {
+        // Weighed by serialized response bytes, not entry count
+        private long maxBytes = 64L * 1024 * 1024;
+        private Duration cacheControlMaxAge = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Locate {
+        private boolean enabled = true;
+        // FULL loads the source polygons; independently simplified ones leave gaps and overlaps along shared borders,
+        // so a point there may resolve to no desa or the neighbouring one, in exchange for a compact index
+        private GeometryResolution resolution = GeometryResolution.FULL;
+    }
+
+    @Data
+    public static class Features {
+        // Upper bound on kodes in one /wilayah/api/features request, parent + childLevel included
+        private int maxKodes = 10000;
+    }
+
+    @Data
+    public static class Metrics {
+        // Log every observed query slower than the threshold together with its kode
+        private boolean slowQueryLog = true;
+        private Duration slowQueryThreshold = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class Viewport {
+        // Zoom from which each level replaces the coarser one in /wilayah/api/viewport
+        private int kabupatenMinZoom = 7;
+        private int kecamatanMinZoom = 10;
+        private int desaMinZoom = 13;
+        private int maxZoom = 18;
+        // Largest features first; the smallest ones beyond this are dropped
+        private int maxFeatures = 2000;
+        // A bbox wider or taller than this many tiles at its zoom is rejected
+        private int maxTilesPerSide = 16;
+        private long cacheMaxBytes = 64L * 1024 * 1024;
+        private Duration cacheControlMaxAge = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Nearest {
+        private int maxK = 100;
+        // Index candidates fetched per requested result before geodesic re-ranking
+        private int candidateFactor = 4;
+        private int minCandidates = 32;
+    }
+
+    @Data
+    public static class Loader {
+        // Files (regions) copied at the same time, each on its own connection
+        private int parallelism = 4;
+        // On a database without any applied migration, record the row-by-row insert migrations as applied without
+        // running them, because --load fills those tables instead (the load profile turns this on)
+        private boolean skipDataMigrations = false;
+    }
+
+    @Data
+    public static class Startup {
+        // Skip Flyway validate/migrate when the build-time script checksums match those of the last successful migrate
+        private boolean skipUnchangedMigrations = false;
+        // Request probe-path once the application is ready, log the time since JVM start and exit
+        private boolean probe = false;
+        private String probePath = "/wilayah/api/all";
+        private String probeLabel = "run";
+        // File the probe appends "<label>.ready-ms" and "<label>.first-request-ms" to, if set
+        private String report;
+    }
+
+    @Data
+    public static class SingleFlight {
+        // Upper bound on concurrent ST_Union style queries, well below the connection pool size
+        private int maxHeavyQueries = 4;
+        // How long a caller waits for a running computation or a free permit before giving up with 503
+        private Duration maxWait = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class FragmentCache {
+        // Rendered cascade selects and detail panels, weighed by (compressed) HTML bytes
+        private long maxBytes = 32L * 1024 * 1024;
+        // How often flyway_schema_history is checked for a newer migration
+        private Duration schemaCheckInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Topology {
+        // Grid cells per side of a topology's bounding box; 1e5 keeps a kabupaten well under a metre per cell
+        private int quantization = 100000;
+    }
+
+    @Data
+    public static class Stats {
+        // Class breaks per metric in /wilayah/api/stats when ?classes= is not given, and the most accepted
+        private int defaultClasses = 5;
+        private int maxClasses = 10;
+    }
+
+    @Data
+    public static class Admin {
+        // The /admin endpoints start full rebuilds and have no authentication of their own; off unless enabled
+        private boolean enabled = false;
+    }
+}
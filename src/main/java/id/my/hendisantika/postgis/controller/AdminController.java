@@ -0,0 +1,111 @@
+package id.my.hendisantika.postgis.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import id.my.hendisantika.postgis.dto.BoundaryStoreStatus;
+import id.my.hendisantika.postgis.dto.CacheStatistics;
+import id.my.hendisantika.postgis.dto.QueryFootprint;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.service.BoundaryStoreService;
+import id.my.hendisantika.postgis.service.FragmentCacheService;
+import id.my.hendisantika.postgis.service.WilayahAggregates;
+import id.my.hendisantika.postgis.service.WilayahService;
+import id.my.hendisantika.postgis.service.WilayahStatsService;
+import id.my.hendisantika.postgis.service.WilayahTree;
+import id.my.hendisantika.postgis.service.WilayahTreeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.20
+ * To change this template use File | Settings | File Templates.
+ */
+@Controller
+@RequestMapping("/admin")
+@ConditionalOnProperty(prefix = "wilayah.admin", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final BoundaryStoreService boundaryStoreService;
+    private final WilayahTreeService wilayahTreeService;
+    private final WilayahService wilayahService;
+    private final FragmentCacheService fragmentCacheService;
+    private final WilayahStatsService wilayahStatsService;
+    private final Map<String, Cache<?, ?>> caches;
+
+    @PostMapping("/boundaries/refresh")
+    @ResponseBody
+    public ResponseEntity<BoundaryStoreStatus> refreshBoundaries() {
+        HttpStatus status = boundaryStoreService.refresh() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(boundaryStoreService.getStatus());
+    }
+
+    @GetMapping("/boundaries/status")
+    @ResponseBody
+    public ResponseEntity<BoundaryStoreStatus> getBoundaryStoreStatus() {
+        return ResponseEntity.ok(boundaryStoreService.getStatus());
+    }
+
+    @PostMapping("/hierarchy/rebuild")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> rebuildHierarchy() {
+        wilayahService.refreshHierarchy();
+        WilayahTree tree = wilayahTreeService.rebuild();
+        // Cascade selects are rendered from the tree
+        fragmentCacheService.invalidateAll();
+        if (tree == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(Map.of("nodes", tree.size()));
+    }
+
+    // Re-measures one subtree after its data changed (or everything without kode) and rolls it up into the stats
+    @PostMapping("/stats/refresh")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> refreshStats(@RequestParam(required = false) String kode)
+            throws InterruptedException {
+        if (kode != null && !kode.isBlank() && AdminLevel.ofKode(kode).isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        long start = System.nanoTime();
+        Optional<WilayahAggregates> aggregates = kode == null || kode.isBlank()
+                ? wilayahStatsService.rebuild()
+                : wilayahStatsService.refresh(kode);
+        if (aggregates.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(Map.of("nodes", aggregates.get().getTree().size(),
+                "elapsedMs", (System.nanoTime() - start) / 1_000_000));
+    }
+
+    @GetMapping("/caches")
+    @ResponseBody
+    public ResponseEntity<List<CacheStatistics>> getCacheStatistics() {
+        return ResponseEntity.ok(caches.entrySet().stream()
+                .map(entry -> CacheStatistics.of(entry.getKey(), entry.getValue()))
+                .toList());
+    }
+
+    @GetMapping("/footprint")
+    @ResponseBody
+    public ResponseEntity<List<QueryFootprint>> getFetchFootprint() {
+        return ResponseEntity.ok(wilayahService.measureFootprint());
+    }
+}
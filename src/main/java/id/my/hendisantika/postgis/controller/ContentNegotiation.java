@@ -0,0 +1,88 @@
+package id.my.hendisantika.postgis.controller;
+
+import id.my.hendisantika.postgis.entity.GeometryFormat;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.45
+ * To change this template use File | Settings | File Templates.
+ */
+final class ContentNegotiation {
+
+    private ContentNegotiation() {
+    }
+
+    /**
+     * Geometry encoding for a request: an explicit ?format= wins, then the first Accept entry (by quality)
+     * naming a known type. Wildcards keep the GeoJSON default so browsers never get a binary body.
+     */
+    static Optional<GeometryFormat> geometryFormat(String format, String accept) {
+        if (format != null) {
+            return GeometryFormat.ofName(format);
+        }
+        if (accept == null || accept.isBlank()) {
+            return Optional.of(GeometryFormat.GEOJSON);
+        }
+        try {
+            List<MediaType> mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType mediaType : mediaTypes) {
+                if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                    break;
+                }
+                Optional<GeometryFormat> match = GeometryFormat.ofMediaType(mediaType.getType() + "/" + mediaType.getSubtype());
+                if (match.isPresent()) {
+                    return match;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Fall through to the default
+        }
+        return Optional.of(GeometryFormat.GEOJSON);
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip: named with a non-zero quality, or covered by a non-zero *.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return quality > 0;
+            }
+            if (coding.equals("*")) {
+                wildcard = quality > 0;
+            }
+        }
+        return wildcard;
+    }
+}
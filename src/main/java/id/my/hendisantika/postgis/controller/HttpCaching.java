@@ -0,0 +1,36 @@
+package id.my.hendisantika.postgis.controller;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.15
+ * To change this template use File | Settings | File Templates.
+ */
+final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, so a W/ prefix on either side is ignored.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        String opaqueEtag = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaqueEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
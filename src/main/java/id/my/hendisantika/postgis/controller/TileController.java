@@ -0,0 +1,65 @@
+package id.my.hendisantika.postgis.controller;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.service.VectorTileService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 09.20
+ * To change this template use File | Settings | File Templates.
+ */
+@Controller
+@RequestMapping("/tiles")
+@RequiredArgsConstructor
+public class TileController {
+
+    private static final MediaType MAPBOX_VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private final VectorTileService vectorTileService;
+    private final WilayahProperties properties;
+
+    @GetMapping("/{level}/{z}/{x}/{y}.mvt")
+    @ResponseBody
+    public ResponseEntity<byte[]> getTile(@PathVariable String level, @PathVariable int z,
+                                          @PathVariable int x, @PathVariable int y) {
+        if (!"auto".equalsIgnoreCase(level) && AdminLevel.ofSlug(level).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!vectorTileService.isValidTile(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(properties.getTiles().getCacheControlMaxAge()).cachePublic();
+        Optional<AdminLevel> adminLevel = vectorTileService.resolveLevel(level, z);
+        if (adminLevel.isEmpty()) {
+            // Zoom too shallow for the requested level: nothing to draw
+            return ResponseEntity.noContent().cacheControl(cacheControl).build();
+        }
+
+        byte[] tile = vectorTileService.getTile(adminLevel.get(), z, x, y);
+        if (tile.length == 0) {
+            return ResponseEntity.noContent().cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MAPBOX_VECTOR_TILE)
+                .cacheControl(cacheControl)
+                .body(tile);
+    }
+}
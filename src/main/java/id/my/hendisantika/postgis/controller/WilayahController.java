@@ -1,17 +1,47 @@
 package id.my.hendisantika.postgis.controller;
 
-import id.my.hendisantika.postgis.dto.BoundaryData;
-import id.my.hendisantika.postgis.entity.WilayahLevel12;
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.CachedPayload;
+import id.my.hendisantika.postgis.dto.LocateResult;
+import id.my.hendisantika.postgis.dto.NearestResult;
+import id.my.hendisantika.postgis.dto.ProvinsiDetail;
+import id.my.hendisantika.postgis.dto.SearchPage;
+import id.my.hendisantika.postgis.dto.StatsResult;
+import id.my.hendisantika.postgis.dto.WilayahDetail;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.ClassBreakMethod;
+import id.my.hendisantika.postgis.entity.GeometryFormat;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.service.BoundaryFeatureService;
+import id.my.hendisantika.postgis.service.BoundaryPayloadService;
+import id.my.hendisantika.postgis.service.FragmentCacheService;
+import id.my.hendisantika.postgis.service.HeavyQueryBusyException;
+import id.my.hendisantika.postgis.service.NearestService;
+import id.my.hendisantika.postgis.service.ReverseGeocoderService;
+import id.my.hendisantika.postgis.service.ViewportService;
+import id.my.hendisantika.postgis.service.WilayahAggregates;
+import id.my.hendisantika.postgis.service.WilayahDetailService;
 import id.my.hendisantika.postgis.service.WilayahService;
+import id.my.hendisantika.postgis.service.WilayahStatsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Created by IntelliJ IDEA.
@@ -28,7 +58,21 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class WilayahController {
 
+    private static final MediaType GEO_JSON = MediaType.parseMediaType("application/geo+json");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    private static final MediaType TEXT_HTML_UTF8 = MediaType.parseMediaType("text/html;charset=UTF-8");
+
     private final WilayahService wilayahService;
+    private final BoundaryPayloadService boundaryPayloadService;
+    private final BoundaryFeatureService boundaryFeatureService;
+    private final WilayahDetailService wilayahDetailService;
+    private final FragmentCacheService fragmentCacheService;
+    private final ReverseGeocoderService reverseGeocoderService;
+    private final ViewportService viewportService;
+    private final NearestService nearestService;
+    private final WilayahStatsService wilayahStatsService;
+    private final WilayahProperties properties;
 
     @GetMapping("/provinsi")
     public String getProvinsiList(Model model) {
@@ -61,72 +105,467 @@ public class WilayahController {
     }
 
     @GetMapping("/detail/{kode}")
-    public String getDetail(@PathVariable String kode, Model model) {
-        int kodeLength = kode.length();
-        if (kodeLength >= 8) {
-            // Kecamatan or Desa from wilayah_level_3_4
-            wilayahService.getLevel34ByKode(kode).ifPresent(wilayah -> {
-                model.addAttribute("wilayah34", wilayah);
-            });
-        } else {
-            // Provinsi or Kabupaten from wilayah_level_1_2
-            wilayahService.getByKode(kode).ifPresent(wilayah ->
-                    model.addAttribute("wilayah", wilayah));
-        }
-        return "fragments/wilayah-detail :: wilayah-detail";
+    @ResponseBody
+    public ResponseEntity<byte[]> getDetail(@PathVariable String kode,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CachedPayload fragment = fragmentCacheService.render("fragments/wilayah-detail", "wilayah-detail", kode, () -> {
+            Map<String, Object> model = new HashMap<>();
+            if (kode.length() >= 8) {
+                // Kecamatan or Desa from wilayah_level_3_4
+                wilayahService.getLevel34ByKode(kode).ifPresent(wilayah -> model.put("wilayah34", wilayah));
+            } else {
+                // Provinsi or Kabupaten from wilayah_level_1_2
+                wilayahService.getByKode(kode).ifPresent(wilayah -> model.put("wilayah", wilayah));
+            }
+            return model;
+        });
+        return toFragmentResponse(fragment, ifNoneMatch, acceptEncoding);
+    }
+
+    // Detail panel with the boundary JSON embedded, so a map click costs a single request
+    @GetMapping("/detail-boundary/{kode}")
+    @ResponseBody
+    public ResponseEntity<byte[]> getDetailWithBoundary(@PathVariable String kode,
+                                                        @RequestParam(required = false) Integer zoom,
+                                                        @RequestParam(required = false) Double tolerance,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        GeometryResolution resolution = GeometryResolution.forRequest(zoom, tolerance);
+        CachedPayload fragment = fragmentCacheService.render("fragments/wilayah-detail", "wilayah-detail",
+                kode + ":" + resolution.name(), () -> {
+                    WilayahDetail detail = wilayahDetailService.getDetail(kode, resolution);
+                    Map<String, Object> model = new HashMap<>();
+                    if (detail.getWilayah() != null) {
+                        model.put("wilayah", detail.getWilayah());
+                    }
+                    if (detail.getWilayah34() != null) {
+                        model.put("wilayah34", detail.getWilayah34());
+                    }
+                    if (detail.getBoundary() != null) {
+                        // Keeps a "</script>" inside a name from closing the embedding script element
+                        String boundaryJson = new String(detail.getBoundary().getBody(), StandardCharsets.UTF_8).replace("</", "<\\/");
+                        model.put("boundaryJson", boundaryJson);
+                    }
+                    return model;
+                });
+        return toFragmentResponse(fragment, ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/api/boundaries/{kode}")
     @ResponseBody
-    public ResponseEntity<WilayahLevel12> getBoundaries(@PathVariable String kode) {
-        return wilayahService.getByKode(kode)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getBoundaries(@PathVariable String kode,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return toCachedResponse(boundaryPayloadService.getBoundaries(kode), GeometryFormat.GEOJSON, ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/api/all")
     @ResponseBody
-    public ResponseEntity<List<Map<String, Object>>> getAllWithBoundaries() {
-        List<Map<String, Object>> result = wilayahService.getAllProvinsi().stream()
-                .map(w -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("kode", w.getKode());
-                    map.put("nama", w.getNama());
-                    map.put("ibukota", w.getIbukota());
-                    map.put("lat", w.getLat());
-                    map.put("lng", w.getLng());
-                    map.put("luas", w.getLuas());
-                    map.put("penduduk", w.getPenduduk());
-                    map.put("level", w.getLevel());
-                    return map;
-                })
-                .toList();
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<ProvinsiDetail>> getAllWithBoundaries() {
+        return ResponseEntity.ok(wilayahService.getAllProvinsiDetail());
     }
 
     @GetMapping("/kabupaten-select/{provinsiKode}")
-    public String getKabupatenSelect(@PathVariable String provinsiKode, Model model) {
-        model.addAttribute("kabupatenList", wilayahService.getKabupatenByProvinsi(provinsiKode));
-        return "fragments/kabupaten-select :: kabupaten-select";
+    @ResponseBody
+    public ResponseEntity<byte[]> getKabupatenSelect(@PathVariable String provinsiKode,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CachedPayload fragment = fragmentCacheService.render("fragments/kabupaten-select", "kabupaten-select", provinsiKode,
+                () -> Map.of("kabupatenList", wilayahService.getKabupatenByProvinsi(provinsiKode)));
+        return toFragmentResponse(fragment, ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/kecamatan-select/{kabupatenKode}")
-    public String getKecamatanSelect(@PathVariable String kabupatenKode, Model model) {
-        model.addAttribute("kecamatanList", wilayahService.getKecamatanByKabupaten(kabupatenKode));
-        return "fragments/kecamatan-select :: kecamatan-select";
+    @ResponseBody
+    public ResponseEntity<byte[]> getKecamatanSelect(@PathVariable String kabupatenKode,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CachedPayload fragment = fragmentCacheService.render("fragments/kecamatan-select", "kecamatan-select", kabupatenKode,
+                () -> Map.of("kecamatanList", wilayahService.getKecamatanByKabupaten(kabupatenKode)));
+        return toFragmentResponse(fragment, ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/desa-select/{kecamatanKode}")
-    public String getDesaSelect(@PathVariable String kecamatanKode, Model model) {
-        model.addAttribute("desaList", wilayahService.getDesaByKecamatan(kecamatanKode));
-        return "fragments/desa-select :: desa-select";
+    @ResponseBody
+    public ResponseEntity<byte[]> getDesaSelect(@PathVariable String kecamatanKode,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CachedPayload fragment = fragmentCacheService.render("fragments/desa-select", "desa-select", kecamatanKode,
+                () -> Map.of("desaList", wilayahService.getDesaByKecamatan(kecamatanKode)));
+        return toFragmentResponse(fragment, ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/api/boundary/{kode}")
     @ResponseBody
-    public ResponseEntity<BoundaryData> getBoundaryWithGeometry(@PathVariable String kode) {
-        return wilayahService.getBoundaryData(kode)
+    public ResponseEntity<byte[]> getBoundaryWithGeometry(@PathVariable String kode,
+                                                          @RequestParam(required = false) Integer zoom,
+                                                          @RequestParam(required = false) Double tolerance,
+                                                          @RequestParam(required = false) String format,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<GeometryFormat> geometryFormat = ContentNegotiation.geometryFormat(format, accept);
+        if (geometryFormat.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        GeometryResolution resolution = GeometryResolution.forRequest(zoom, tolerance);
+        return toCachedResponse(boundaryPayloadService.getBoundary(kode, resolution, geometryFormat.get()),
+                geometryFormat.get(), ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/api/search")
+    @ResponseBody
+    public ResponseEntity<SearchPage> searchApi(@RequestParam String q,
+                                                @RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.clamp(size, 1, 100);
+        return ResponseEntity.ok(wilayahService.search(q, Math.max(page, 0), pageSize));
+    }
+
+    @GetMapping("/api/locate")
+    @ResponseBody
+    public ResponseEntity<LocateResult> locate(@RequestParam double lat, @RequestParam double lng) {
+        if (!reverseGeocoderService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return reverseGeocoderService.locate(lat, lng)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Boundaries inside bbox=minLng,minLat,maxLng,maxLat at a level picked from the zoom: provinsi when zoomed out,
+     * down to desa when zoomed in. The bbox is snapped to the tile grid so nearby pans are served from the cache.
+     */
+    @GetMapping("/api/viewport")
+    @ResponseBody
+    public ResponseEntity<byte[]> getViewport(@RequestParam List<Double> bbox, @RequestParam int zoom,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (bbox.size() != 4 || zoom < 0 || zoom > properties.getViewport().getMaxZoom()) {
+            return ResponseEntity.badRequest().build();
+        }
+        double[] envelope = {bbox.get(0), bbox.get(1), bbox.get(2), bbox.get(3)};
+        if (envelope[0] >= envelope[2] || envelope[1] >= envelope[3]
+                || envelope[0] < -180 || envelope[2] > 180 || envelope[1] < -90 || envelope[3] > 90) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<ViewportService.TileRange> range = viewportService.snap(envelope, zoom);
+        if (range.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        }
+
+        CachedPayload payload = viewportService.getViewport(range.get());
+        CacheControl cacheControl = CacheControl.maxAge(properties.getViewport().getCacheControlMaxAge()).cachePublic();
+        String level = viewportService.resolveLevel(zoom).getSlug();
+        boolean gzip = sendsGzip(payload, acceptEncoding);
+        String etag = gzip ? payload.getGzipEtag() : payload.getEtag();
+        if (HttpCaching.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .cacheControl(cacheControl)
+                    .header("X-Wilayah-Level", level)
+                    .build();
+        }
+        return withEncoding(ResponseEntity.ok()
+                .contentType(GEO_JSON)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(cacheControl)
+                .header("X-Wilayah-Level", level), payload, gzip);
+    }
+
+    // All descendants of kode, or only those at ?level= (2-4), e.g. /api/subtree/91?level=4 for every desa in Papua
+    @GetMapping("/api/subtree/{kode}")
+    @ResponseBody
+    public ResponseEntity<List<WilayahNode>> getSubtree(@PathVariable String kode,
+                                                        @RequestParam(required = false) Integer level) {
+        if (!AdminLevel.isKode(kode)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (level == null) {
+            return ResponseEntity.ok(wilayahService.getDescendants(kode));
+        }
+        Optional<AdminLevel> adminLevel = AdminLevel.ofLevel(level);
+        if (adminLevel.isEmpty() || kode.length() >= adminLevel.get().getKodeLength()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(wilayahService.getSubtree(kode, adminLevel.get()));
+    }
+
+    // Provinsi down to kode itself
+    @GetMapping("/api/ancestors/{kode}")
+    @ResponseBody
+    public ResponseEntity<List<WilayahNode>> getAncestors(@PathVariable String kode) {
+        if (!AdminLevel.isKode(kode)) {
+            return ResponseEntity.notFound().build();
+        }
+        List<WilayahNode> ancestors = wilayahService.getAncestors(kode);
+        if (ancestors.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ancestors);
+    }
+
+    /**
+     * Area, population, density and unit counts of a kode and of every descendant at childLevel (default: the next
+     * level), with class breaks over the children for a choropleth, e.g. all desa of a provinsi in one call.
+     */
+    @GetMapping("/api/stats/{kode}")
+    @ResponseBody
+    public ResponseEntity<StatsResult> getStats(@PathVariable String kode,
+                                                @RequestParam(required = false) Integer childLevel,
+                                                @RequestParam(required = false) Integer classes,
+                                                @RequestParam(defaultValue = "quantile") String method) {
+        Optional<AdminLevel> level = AdminLevel.ofKode(kode);
+        if (level.isEmpty() || level.get() == AdminLevel.DESA) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<AdminLevel> children = AdminLevel.ofLevel(childLevel != null ? childLevel : level.get().getLevel() + 1);
+        Optional<ClassBreakMethod> breakMethod = ClassBreakMethod.ofSlug(method);
+        int classCount = classes != null ? classes : properties.getStats().getDefaultClasses();
+        if (children.isEmpty() || children.get().compareTo(level.get()) <= 0 || breakMethod.isEmpty()
+                || classCount < 1 || classCount > properties.getStats().getMaxClasses()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<WilayahAggregates> aggregates = wilayahStatsService.current();
+        if (aggregates.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return wilayahStatsService.stats(aggregates.get(), kode, children.get(), classCount, breakMethod.get())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Nearest k kecamatan or desa to a point with distances in meters. mode=boundary measures to the polygon instead
+     * of its centroid; source=memory answers from the in-memory centroid k-d tree without touching the database.
+     */
+    @GetMapping("/api/nearest")
+    @ResponseBody
+    public ResponseEntity<NearestResult> nearest(@RequestParam double lat, @RequestParam double lng,
+                                                 @RequestParam(defaultValue = "desa") String level,
+                                                 @RequestParam(defaultValue = "10") int k,
+                                                 @RequestParam(defaultValue = NearestService.MODE_CENTROID) String mode,
+                                                 @RequestParam(defaultValue = NearestService.SOURCE_DATABASE) String source) {
+        Optional<AdminLevel> adminLevel = AdminLevel.ofSlug(level)
+                .filter(l -> l == AdminLevel.KECAMATAN || l == AdminLevel.DESA);
+        boolean boundary = NearestService.MODE_BOUNDARY.equalsIgnoreCase(mode);
+        if (adminLevel.isEmpty() || Math.abs(lat) > 90 || Math.abs(lng) > 180
+                || (!boundary && !NearestService.MODE_CENTROID.equalsIgnoreCase(mode))) {
+            return ResponseEntity.badRequest().build();
+        }
+        int limit = Math.clamp(k, 1, properties.getNearest().getMaxK());
+
+        if (NearestService.SOURCE_MEMORY.equalsIgnoreCase(source)) {
+            if (boundary) {
+                // The k-d tree only holds centroids
+                return ResponseEntity.badRequest().build();
+            }
+            return nearestService.fromMemory(adminLevel.get(), lat, lng, limit)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        if (!NearestService.SOURCE_DATABASE.equalsIgnoreCase(source)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(nearestService.fromDatabase(adminLevel.get(), lat, lng, limit, boundary));
+    }
+
+    @GetMapping("/api/features")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> getFeatures(@RequestParam(required = false) List<String> kode,
+                                                             @RequestParam(required = false) String parent,
+                                                             @RequestParam(required = false) Integer childLevel,
+                                                             @RequestParam(required = false) Integer zoom,
+                                                             @RequestParam(required = false) Double tolerance,
+                                                             @RequestParam(required = false) String format,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Optional<GeometryFormat> geometryFormat = ContentNegotiation.geometryFormat(format, accept);
+        if (geometryFormat.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        GeometryResolution resolution = GeometryResolution.forRequest(zoom, tolerance);
+        if (parent != null && childLevel != null) {
+            Optional<AdminLevel> level = AdminLevel.ofLevel(childLevel);
+            if (level.isEmpty() || parent.length() >= level.get().getKodeLength()) {
+                return ResponseEntity.badRequest().build();
+            }
+            Optional<List<String>> children = boundaryFeatureService.findChildKodes(parent, level.get());
+            if (children.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return toFeatureCollection(children.get(), resolution, geometryFormat.get());
+        }
+        if (kode == null || kode.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return toFeatureCollection(kode, resolution, geometryFormat.get());
+    }
+
+    // Children of one parent as a TopoJSON topology: shared borders are sent once, quantized and delta-encoded
+    @GetMapping("/api/topology")
+    @ResponseBody
+    public ResponseEntity<byte[]> getTopology(@RequestParam String parent,
+                                              @RequestParam Integer childLevel,
+                                              @RequestParam(required = false) Integer zoom,
+                                              @RequestParam(required = false) Double tolerance,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<AdminLevel> level = AdminLevel.ofLevel(childLevel);
+        if (level.isEmpty() || parent.length() >= level.get().getKodeLength()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<List<String>> children = boundaryFeatureService.findChildKodes(parent, level.get());
+        if (children.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (children.get().size() > properties.getFeatures().getMaxKodes()) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        }
+        return toCachedResponse(boundaryPayloadService.getTopology(parent, level.get(), GeometryResolution.forRequest(zoom, tolerance)),
+                MediaType.APPLICATION_JSON, ifNoneMatch, acceptEncoding);
+    }
+
+    @PostMapping("/api/features")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> postFeatures(@RequestBody List<String> kodes,
+                                                              @RequestParam(required = false) Integer zoom,
+                                                              @RequestParam(required = false) Double tolerance,
+                                                              @RequestParam(required = false) String format,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Optional<GeometryFormat> geometryFormat = ContentNegotiation.geometryFormat(format, accept);
+        if (geometryFormat.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        if (kodes.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return toFeatureCollection(kodes, GeometryResolution.forRequest(zoom, tolerance), geometryFormat.get());
+    }
+
+    @GetMapping("/api/export/{level}")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String level,
+                                                        @RequestParam(required = false) String parent,
+                                                        @RequestParam(defaultValue = "geojson") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        @RequestParam(required = false) Integer zoom,
+                                                        @RequestParam(required = false) Double tolerance) {
+        Optional<AdminLevel> adminLevel = AdminLevel.ofSlug(level);
+        if (adminLevel.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean newlineDelimited = "ndjson".equalsIgnoreCase(format);
+        if (!newlineDelimited && !"geojson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        GeometryResolution resolution = GeometryResolution.forRequest(zoom, tolerance);
+        String filename = adminLevel.get().getSlug() + (parent != null ? "-" + parent : "")
+                + (newlineDelimited ? ".ndjson" : ".geojson") + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                boundaryFeatureService.export(adminLevel.get(), parent, resolution, newlineDelimited, out);
+                return;
+            }
+            // Finished only on success: a failed export ends without the gzip trailer, so it fails to decompress
+            GZIPOutputStream target = new GZIPOutputStream(out, 64 * 1024);
+            boundaryFeatureService.export(adminLevel.get(), parent, resolution, newlineDelimited, target);
+            target.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : newlineDelimited ? NDJSON : GEO_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> toFeatureCollection(List<String> kodes, GeometryResolution resolution,
+                                                                      GeometryFormat format) {
+        if (kodes.size() > properties.getFeatures().getMaxKodes()) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        }
+        List<String> distinct = kodes.stream().map(String::trim).distinct().toList();
+        if (format.isBinary()) {
+            // Binary encodings are built by one aggregate query, so the body is complete before it is sent
+            Optional<byte[]> body = boundaryFeatureService.encode(distinct, resolution, format);
+            if (body.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(format.getMediaType()))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(out -> out.write(body.get()));
+        }
+        return ResponseEntity.ok()
+                .contentType(GEO_JSON)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(out -> boundaryFeatureService.writeFeatureCollection(distinct, resolution, out));
+    }
+
+    private static boolean sendsGzip(CachedPayload payload, String acceptEncoding) {
+        return payload.isGzipped() && ContentNegotiation.acceptsGzip(acceptEncoding);
+    }
+
+    // Payloads are kept gzip-compressed: sent as they are, decompressed only for clients without gzip
+    private static ResponseEntity<byte[]> withEncoding(ResponseEntity.BodyBuilder builder, CachedPayload payload, boolean gzip) {
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzipBody());
+        }
+        return builder.body(payload.getBody());
+    }
+
+    // Always revalidated: a re-migration changes the ETag, a matching one costs a cache lookup and a 304
+    private static ResponseEntity<byte[]> toFragmentResponse(CachedPayload fragment, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = sendsGzip(fragment, acceptEncoding);
+        String etag = gzip ? fragment.getGzipEtag() : fragment.getEtag();
+        if (HttpCaching.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return withEncoding(ResponseEntity.ok()
+                .contentType(TEXT_HTML_UTF8)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noCache()), fragment, gzip);
+    }
+
+    private ResponseEntity<byte[]> toCachedResponse(Optional<CachedPayload> payload, GeometryFormat format,
+                                                    String ifNoneMatch, String acceptEncoding) {
+        return toCachedResponse(payload, MediaType.parseMediaType(format.getMediaType()), ifNoneMatch, acceptEncoding);
+    }
+
+    private ResponseEntity<byte[]> toCachedResponse(Optional<CachedPayload> payload, MediaType mediaType,
+                                                    String ifNoneMatch, String acceptEncoding) {
+        if (payload.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        CacheControl cacheControl = CacheControl.maxAge(properties.getBoundaryCache().getCacheControlMaxAge()).cachePublic();
+        boolean gzip = sendsGzip(payload.get(), acceptEncoding);
+        String etag = gzip ? payload.get().getGzipEtag() : payload.get().getEtag();
+        if (HttpCaching.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return withEncoding(ResponseEntity.ok()
+                .contentType(mediaType)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(cacheControl), payload.get(), gzip);
+    }
+
+    // Too many heavy geometry queries or a coalesced one still running: ask the client to come back shortly
+    @ExceptionHandler(HeavyQueryBusyException.class)
+    public ResponseEntity<Void> heavyQueryBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
 }
@@ -26,4 +26,5 @@ public class BoundaryData {
     private Double lat;
     private Double lng;
     private String coordinates; // GeoJSON string or coordinate array
+    private Double tolerance; // simplification tolerance in degrees, 0 for full resolution
 }
@@ -0,0 +1,31 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoundaryStoreStatus {
+    private boolean running;
+    private long provinsiCount;
+    private long kabupatenCount;
+    private Instant lastStartedAt;
+    private Instant lastFinishedAt;
+    private int lastFailures;
+}
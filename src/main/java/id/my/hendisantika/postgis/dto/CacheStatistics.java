@@ -0,0 +1,51 @@
+package id.my.hendisantika.postgis.dto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private String name;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long evictionWeight;
+    private long estimatedSize;
+    private long weightedSize;
+    private long maximumWeight;
+
+    public static CacheStatistics of(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Policy.Eviction<?, ?> eviction = cache.policy().eviction().orElse(null);
+        return CacheStatistics.builder()
+                .name(name)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .evictionWeight(stats.evictionWeight())
+                .estimatedSize(cache.estimatedSize())
+                .weightedSize(eviction != null ? eviction.weightedSize().orElse(0L) : 0L)
+                .maximumWeight(eviction != null ? eviction.getMaximum() : 0L)
+                .build();
+    }
+}
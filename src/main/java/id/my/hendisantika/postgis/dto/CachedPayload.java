@@ -0,0 +1,92 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.00
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CachedPayload {
+
+    // Smaller bodies hardly shrink and the gzip header would eat the gain
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    // Kept once, gzip-compressed whenever that is smaller; identity bytes are rebuilt only when asked for
+    byte[] data;
+    boolean gzipped;
+    String etag;
+
+    /**
+     * Compresses the serialized body once, at the highest level since the cost is paid only when the payload is
+     * built. The ETag stays the one of the uncompressed body.
+     */
+    public static CachedPayload of(byte[] body, String etag) {
+        if (body.length >= MIN_GZIP_BYTES) {
+            byte[] compressed = gzip(body);
+            if (compressed.length < body.length) {
+                return new CachedPayload(compressed, true, etag);
+            }
+        }
+        return new CachedPayload(body, false, etag);
+    }
+
+    // Uncompressed body, for clients without gzip and for embedding in pages
+    public byte[] getBody() {
+        return gzipped ? gunzip(data) : data;
+    }
+
+    // Gzip body to send with Content-Encoding: gzip, null when the payload is kept uncompressed
+    public byte[] getGzipBody() {
+        return gzipped ? data : null;
+    }
+
+    // The gzip representation is a different byte sequence and gets its own strong validator
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    public int getWeight() {
+        return data.length + etag.length();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed), 64 * 1024)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package id.my.hendisantika.postgis.dto;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.00
+ * To change this template use File | Settings | File Templates.
+ */
+public interface FetchFootprint {
+    long getRowCount();
+
+    // Text representation of the whole row, path included
+    long getEntityBytes();
+
+    // kode, nama, lat, lng only
+    long getProjectionBytes();
+}
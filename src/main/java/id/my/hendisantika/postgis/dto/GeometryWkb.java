@@ -0,0 +1,17 @@
+package id.my.hendisantika.postgis.dto;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.00
+ * To change this template use File | Settings | File Templates.
+ */
+public interface GeometryWkb {
+    String getKode();
+
+    byte[] getWkb();
+}
@@ -0,0 +1,26 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.Value;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+public class LoadReport {
+    String table;
+    int files;
+    long rows;
+    long copyMillis;
+    long indexMillis;
+
+    public long getRowsPerSecond() {
+        return rows * 1000 / Math.max(copyMillis, 1);
+    }
+}
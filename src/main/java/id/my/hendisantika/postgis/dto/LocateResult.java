@@ -0,0 +1,30 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocateResult {
+    private Double lat;
+    private Double lng;
+    private WilayahNode provinsi;
+    private WilayahNode kabupaten;
+    private WilayahNode kecamatan;
+    private WilayahNode desa;
+    private Long elapsedMicros;
+}
@@ -0,0 +1,23 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.Value;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.50
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+public class NearbyWilayah {
+    String kode;
+    String nama;
+    String level;
+    Double lat;
+    Double lng;
+    double distanceMeters;
+}
@@ -0,0 +1,34 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.55
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearestResult {
+    private Double lat;
+    private Double lng;
+    private String level;
+    // centroid or boundary
+    private String mode;
+    // database or memory
+    private String source;
+    private List<NearbyWilayah> results;
+    private Long elapsedMicros;
+}
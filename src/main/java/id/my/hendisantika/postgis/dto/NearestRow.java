@@ -0,0 +1,25 @@
+package id.my.hendisantika.postgis.dto;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.45
+ * To change this template use File | Settings | File Templates.
+ */
+public interface NearestRow {
+    String getKode();
+
+    String getNama();
+
+    // Centroid of the geometry
+    Double getLat();
+
+    Double getLng();
+
+    // Geodesic meters to the centroid or to the boundary, depending on the query
+    Double getDistance();
+}
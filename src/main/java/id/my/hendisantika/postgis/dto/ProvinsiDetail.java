@@ -0,0 +1,38 @@
+package id.my.hendisantika.postgis.dto;
+
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import lombok.Value;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+public class ProvinsiDetail {
+    String kode;
+    String nama;
+    String ibukota;
+    Double lat;
+    Double lng;
+    Double luas;
+    Double penduduk;
+    String level;
+
+    // JPQL constructor expression of WilayahLevel12Repository.findAllProvinsiDetails
+    public ProvinsiDetail(String kode, String nama, String ibukota, Double lat, Double lng, Double luas, Double penduduk) {
+        this.kode = kode;
+        this.nama = nama;
+        this.ibukota = ibukota;
+        this.lat = lat;
+        this.lng = lng;
+        this.luas = luas;
+        this.penduduk = penduduk;
+        this.level = AdminLevel.PROVINSI.getLabel();
+    }
+}
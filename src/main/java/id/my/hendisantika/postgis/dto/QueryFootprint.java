@@ -0,0 +1,25 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.Value;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+public class QueryFootprint {
+    String query;
+    long rows;
+    long entityBytes;
+    long projectionBytes;
+
+    public static QueryFootprint of(String query, FetchFootprint footprint) {
+        return new QueryFootprint(query, footprint.getRowCount(), footprint.getEntityBytes(), footprint.getProjectionBytes());
+    }
+}
@@ -0,0 +1,35 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.25
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsResult {
+    private WilayahStats parent;
+    private String childLevel;
+    // quantile or equal
+    private String method;
+    private Integer classes;
+    // Per metric (areaKm2, population, density): classes + 1 bounds over the children, empty when none is known
+    private Map<String, double[]> breaks;
+    private List<WilayahStats> children;
+    private Long elapsedMicros;
+}
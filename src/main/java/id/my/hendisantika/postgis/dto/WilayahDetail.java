@@ -0,0 +1,22 @@
+package id.my.hendisantika.postgis.dto;
+
+import id.my.hendisantika.postgis.entity.WilayahLevel12;
+import id.my.hendisantika.postgis.entity.WilayahLevel34;
+import lombok.Value;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.40
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+public class WilayahDetail {
+    WilayahLevel12 wilayah;     // provinsi or kabupaten
+    WilayahLevel34 wilayah34;   // kecamatan or desa
+    CachedPayload boundary;     // boundary as a GeoJSON Feature, null when unknown
+}
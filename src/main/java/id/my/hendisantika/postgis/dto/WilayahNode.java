@@ -0,0 +1,32 @@
+package id.my.hendisantika.postgis.dto;
+
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import lombok.Value;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 13.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Value
+public class WilayahNode {
+    String kode;
+    String nama;
+    Double lat;
+    Double lng;
+    AdminLevel adminLevel;
+
+    public String getLevel() {
+        return adminLevel.getLabel();
+    }
+
+    public String getParentKode() {
+        int lastDot = kode.lastIndexOf('.');
+        return lastDot > 0 ? kode.substring(0, lastDot) : null;
+    }
+}
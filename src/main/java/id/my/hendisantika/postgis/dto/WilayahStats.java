@@ -0,0 +1,34 @@
+package id.my.hendisantika.postgis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.20
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WilayahStats {
+    private String kode;
+    private String nama;
+    private String level;
+    // Null where neither the unit nor any of its children has a value
+    private Double areaKm2;
+    private Double population;
+    private Double density;
+    // Units per deeper level slug, e.g. {"kecamatan": 31, "desa": 447}
+    private Map<String, Integer> descendants;
+}
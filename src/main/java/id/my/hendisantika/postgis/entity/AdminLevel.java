@@ -0,0 +1,78 @@
+package id.my.hendisantika.postgis.entity;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 09.00
+ * To change this template use File | Settings | File Templates.
+ */
+public enum AdminLevel {
+
+    PROVINSI(1, 2, "Provinsi"),
+    KABUPATEN(2, 5, "Kabupaten/Kota"),
+    KECAMATAN(3, 8, "Kecamatan"),
+    DESA(4, 13, "Desa/Kelurahan");
+
+    private static final Pattern KODE = Pattern.compile("\\d{2}(\\.\\d{2}(\\.\\d{2}(\\.\\d{4})?)?)?");
+
+    private final int level;
+    private final int kodeLength;
+    private final String label;
+
+    AdminLevel(int level, int kodeLength, String label) {
+        this.level = level;
+        this.kodeLength = kodeLength;
+        this.label = label;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getKodeLength() {
+        return kodeLength;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getSlug() {
+        return name().toLowerCase();
+    }
+
+    public static Optional<AdminLevel> ofKode(String kode) {
+        if (kode == null) return Optional.empty();
+        for (AdminLevel adminLevel : values()) {
+            if (adminLevel.kodeLength == kode.length()) return Optional.of(adminLevel);
+        }
+        return Optional.empty();
+    }
+
+    // 32, 32.73, 32.73.01 or 32.73.01.1001; safe to pass to text2ltree
+    public static boolean isKode(String kode) {
+        return kode != null && KODE.matcher(kode).matches();
+    }
+
+    public static Optional<AdminLevel> ofLevel(int level) {
+        for (AdminLevel adminLevel : values()) {
+            if (adminLevel.level == level) return Optional.of(adminLevel);
+        }
+        return Optional.empty();
+    }
+
+    public static Optional<AdminLevel> ofSlug(String slug) {
+        if (slug == null) return Optional.empty();
+        for (AdminLevel adminLevel : values()) {
+            if (adminLevel.getSlug().equalsIgnoreCase(slug)) return Optional.of(adminLevel);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,38 @@
+package id.my.hendisantika.postgis.entity;
+
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.10
+ * To change this template use File | Settings | File Templates.
+ */
+public enum ClassBreakMethod {
+
+    // Same number of units in every class
+    QUANTILE("quantile"),
+    // Classes of equal width between the smallest and the largest value
+    EQUAL_INTERVAL("equal");
+
+    private final String slug;
+
+    ClassBreakMethod(String slug) {
+        this.slug = slug;
+    }
+
+    public String getSlug() {
+        return slug;
+    }
+
+    public static Optional<ClassBreakMethod> ofSlug(String slug) {
+        for (ClassBreakMethod method : values()) {
+            if (method.slug.equalsIgnoreCase(slug)) return Optional.of(method);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,57 @@
+package id.my.hendisantika.postgis.entity;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.40
+ * To change this template use File | Settings | File Templates.
+ */
+public enum GeometryFormat {
+
+    GEOJSON("application/json"),
+    // GeoJSON Feature with the PostGIS geometry embedded as raw JSON instead of an escaped string
+    FEATURE("application/geo+json"),
+    // Tiny WKB: varint delta-encoded coordinates at a fixed decimal precision
+    TWKB("application/x-twkb"),
+    // FlatGeobuf with its packed Hilbert R-tree, readable with HTTP range requests
+    FLATGEOBUF("application/flatgeobuf");
+
+    private final String mediaType;
+
+    GeometryFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public boolean isBinary() {
+        return this == TWKB || this == FLATGEOBUF;
+    }
+
+    public static Optional<GeometryFormat> ofName(String name) {
+        if (name == null) return Optional.empty();
+        try {
+            return Optional.of(valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static Optional<GeometryFormat> ofMediaType(String mediaType) {
+        for (GeometryFormat format : values()) {
+            if (format.mediaType.equalsIgnoreCase(mediaType)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,77 @@
+package id.my.hendisantika.postgis.entity;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.00
+ * To change this template use File | Settings | File Templates.
+ */
+public enum GeometryResolution {
+
+    // Source geometry, ST_AsGeoJSON default precision
+    FULL(0, 0.0, 9),
+    // Tolerances in degrees, each about one screen pixel at zoom 12, 10 and 8
+    HIGH(1, 0.00025, 5),
+    MEDIUM(2, 0.001, 4),
+    LOW(3, 0.005, 3);
+
+    private final short code;
+    private final double tolerance;
+    private final int decimalDigits;
+
+    GeometryResolution(int code, double tolerance, int decimalDigits) {
+        this.code = (short) code;
+        this.tolerance = tolerance;
+        this.decimalDigits = decimalDigits;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getDecimalDigits() {
+        return decimalDigits;
+    }
+
+    public boolean isSimplified() {
+        return this != FULL;
+    }
+
+    /**
+     * Coarsest stored resolution whose tolerance does not exceed the given one.
+     */
+    public static GeometryResolution forTolerance(double tolerance) {
+        GeometryResolution best = FULL;
+        for (GeometryResolution resolution : values()) {
+            if (resolution.tolerance <= tolerance && resolution.tolerance > best.tolerance) {
+                best = resolution;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Coarsest resolution that still keeps the error below one 256px Web Mercator tile pixel at the equator.
+     */
+    public static GeometryResolution forZoom(int zoom) {
+        return forTolerance(pixelSizeDegrees(zoom));
+    }
+
+    public static GeometryResolution forRequest(Integer zoom, Double tolerance) {
+        if (tolerance != null) return forTolerance(tolerance);
+        if (zoom != null) return forZoom(zoom);
+        return FULL;
+    }
+
+    public static double pixelSizeDegrees(int zoom) {
+        return 360.0 / (256.0 * Math.pow(2, Math.max(zoom, 0)));
+    }
+}
@@ -0,0 +1,37 @@
+package id.my.hendisantika.postgis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "wilayah_geometry_simplified")
+public class SimplifiedGeometry {
+
+    @EmbeddedId
+    private SimplifiedGeometryId id;
+
+    @Column(name = "level", nullable = false)
+    private Short level;
+
+    @Column(name = "geom", columnDefinition = "geometry(Geometry,4326)")
+    private Geometry geom;
+
+    @Column(name = "geojson", columnDefinition = "TEXT")
+    private String geojson;
+}
@@ -0,0 +1,32 @@
+package id.my.hendisantika.postgis.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class SimplifiedGeometryId implements Serializable {
+
+    @Column(name = "kode", length = 20, nullable = false)
+    private String kode;
+
+    @Column(name = "resolution", nullable = false)
+    private Short resolution;
+}
@@ -0,0 +1,43 @@
+package id.my.hendisantika.postgis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.locationtech.jts.geom.Geometry;
+
+import java.time.LocalDateTime;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.00
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "wilayah_boundary_1_2")
+public class WilayahBoundary {
+
+    @Id
+    @Column(name = "kode", length = 13, nullable = false)
+    private String kode;
+
+    @Column(name = "level", nullable = false)
+    private Short level;
+
+    @Column(name = "geom", columnDefinition = "geometry(MultiPolygon,4326)")
+    private Geometry geom;
+
+    @Column(name = "geojson", columnDefinition = "TEXT")
+    private String geojson;
+
+    @Column(name = "refreshed_at")
+    private LocalDateTime refreshedAt;
+}
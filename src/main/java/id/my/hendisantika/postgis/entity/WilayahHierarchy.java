@@ -0,0 +1,49 @@
+package id.my.hendisantika.postgis.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "wilayah_hierarchy")
+public class WilayahHierarchy {
+
+    @Id
+    @Column(name = "kode", length = 13, nullable = false)
+    private String kode;
+
+    @Column(name = "nama")
+    private String nama;
+
+    @Column(name = "level", nullable = false)
+    private Short level;
+
+    // ltree, read as its text form (equal to kode)
+    @Column(name = "path", columnDefinition = "ltree", insertable = false, updatable = false)
+    private String path;
+
+    @Column(name = "lat")
+    private Double lat;
+
+    @Column(name = "lng")
+    private Double lng;
+}
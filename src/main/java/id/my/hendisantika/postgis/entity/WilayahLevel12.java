@@ -1,12 +1,15 @@
 package id.my.hendisantika.postgis.entity;
 
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * Created by IntelliJ IDEA.
@@ -53,6 +56,9 @@ public class WilayahLevel12 {
     @Column(name = "penduduk")
     private Double penduduk;
 
+    // Large coordinate text, only loaded when accessed
+    @Basic(fetch = FetchType.LAZY)
+    @ToString.Exclude
     @Column(name = "path", columnDefinition = "TEXT")
     private String path;
 
@@ -0,0 +1,271 @@
+package id.my.hendisantika.postgis.repository;
+
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BoundaryFeatureRepository {
+
+    // One statement per level for a whole batch of kodes; the simplified geometry is used when present
+    private static final String PROVINSI_KABUPATEN_SQL = """
+            SELECT b.kode, COALESCE(s.geojson, b.geojson) AS geojson
+            FROM wilayah_boundary_1_2 b
+            LEFT JOIN wilayah_geometry_simplified s ON s.kode = b.kode AND s.resolution = ?
+            WHERE b.kode = ANY(?)
+            """;
+
+    private static final String KECAMATAN_SQL = """
+            SELECT DISTINCT ON (a.kode_kec) a.kode_kec AS kode, COALESCE(s.geojson, ST_AsGeoJSON(a.geom)) AS geojson
+            FROM idn_admbnda_adm3_2023 a
+            LEFT JOIN wilayah_geometry_simplified s ON s.kode = a.kode_kec AND s.resolution = ?
+            WHERE a.kode_kec = ANY(?)
+            ORDER BY a.kode_kec, a.gid
+            """;
+
+    private static final String DESA_SQL = """
+            SELECT DISTINCT ON (v.kode_kd) v.kode_kd AS kode, COALESCE(s.geojson, ST_AsGeoJSON(v.geom)) AS geojson
+            FROM all_villages_2023 v
+            LEFT JOIN wilayah_geometry_simplified s ON s.kode = v.kode_kd AND s.resolution = ?
+            WHERE v.kode_kd = ANY(?)
+            ORDER BY v.kode_kd, v.gid
+            """;
+
+    // Whole-level exports. The source tables hold duplicate kode rows, deduped like every other query on them
+    private static final String EXPORT_PROVINSI_KABUPATEN_SQL = """
+            SELECT b.kode, w.nama, COALESCE(s.geojson, b.geojson) AS geojson
+            FROM wilayah_boundary_1_2 b
+            LEFT JOIN wilayah_level_1_2 w ON w.kode = b.kode
+            LEFT JOIN wilayah_geometry_simplified s ON s.kode = b.kode AND s.resolution = ?
+            WHERE b.kode LIKE ? AND b.level = ?
+            """;
+
+    private static final String EXPORT_KECAMATAN_SQL = """
+            SELECT DISTINCT ON (a.kode_kec) a.kode_kec AS kode, a.kecamatan AS nama,
+                   COALESCE(s.geojson, ST_AsGeoJSON(a.geom)) AS geojson
+            FROM idn_admbnda_adm3_2023 a
+            LEFT JOIN wilayah_geometry_simplified s ON s.kode = a.kode_kec AND s.resolution = ?
+            WHERE a.kode_kec LIKE ?
+            ORDER BY a.kode_kec, a.gid
+            """;
+
+    private static final String EXPORT_DESA_SQL = """
+            SELECT DISTINCT ON (v.kode_kd) v.kode_kd AS kode, v.kel_desa AS nama,
+                   COALESCE(s.geojson, ST_AsGeoJSON(v.geom)) AS geojson
+            FROM all_villages_2023 v
+            LEFT JOIN wilayah_geometry_simplified s ON s.kode = v.kode_kd AND s.resolution = ?
+            WHERE v.kode_kd LIKE ?
+            ORDER BY v.kode_kd, v.gid
+            """;
+
+    // Geometries of a kode batch across all levels; kode formats differ per level so each branch only matches its own
+    private static final String BINARY_FEATURES_CTE = """
+            WITH f AS (
+                SELECT b.kode, w.nama, ST_Multi(COALESCE(s.geom, b.geom)) AS geom
+                FROM wilayah_boundary_1_2 b
+                LEFT JOIN wilayah_level_1_2 w ON w.kode = b.kode
+                LEFT JOIN wilayah_geometry_simplified s ON s.kode = b.kode AND s.resolution = ?
+                WHERE b.kode = ANY(?)
+                UNION ALL
+                (SELECT DISTINCT ON (a.kode_kec) a.kode_kec, a.kecamatan, ST_Multi(COALESCE(s.geom, a.geom))
+                 FROM idn_admbnda_adm3_2023 a
+                 LEFT JOIN wilayah_geometry_simplified s ON s.kode = a.kode_kec AND s.resolution = ?
+                 WHERE a.kode_kec = ANY(?)
+                 ORDER BY a.kode_kec, a.gid)
+                UNION ALL
+                (SELECT DISTINCT ON (v.kode_kd) v.kode_kd, v.kel_desa, ST_Multi(COALESCE(s.geom, v.geom))
+                 FROM all_villages_2023 v
+                 LEFT JOIN wilayah_geometry_simplified s ON s.kode = v.kode_kd AND s.resolution = ?
+                 WHERE v.kode_kd = ANY(?)
+                 ORDER BY v.kode_kd, v.gid)
+            )
+            """;
+
+    // FlatGeobuf keeps kode and nama as feature properties and builds the spatial index
+    private static final String FLATGEOBUF_SQL = BINARY_FEATURES_CTE + """
+            SELECT ST_AsFlatGeobuf(f, true, 'geom') FROM f
+            """;
+
+    private static final String TWKB_SQL = BINARY_FEATURES_CTE + """
+            SELECT ST_AsTWKB(f.geom, ?) FROM f
+            """;
+
+    // Several geometries become one TWKB collection; the id list is the kode without dots (32.73.01 -> 327301)
+    private static final String TWKB_COLLECTION_SQL = BINARY_FEATURES_CTE + """
+            SELECT ST_AsTWKB(array_agg(f.geom ORDER BY f.kode), array_agg(replace(f.kode, '.', '')::bigint ORDER BY f.kode), ?)
+            FROM f
+            """;
+
+    // Features intersecting a bbox, simplified to the pixel size and largest first so the LIMIT drops the smallest.
+    // Parameters: tolerance, digits, resolution, minx, miny, maxx, maxy, [level,] limit
+    private static final String VIEWPORT_PROVINSI_KABUPATEN_SQL = """
+            SELECT f.kode, f.nama, ST_AsGeoJSON(ST_SimplifyPreserveTopology(f.geom, ?), ?) AS geojson
+            FROM (
+                SELECT b.kode, w.nama, COALESCE(s.geom, b.geom) AS geom
+                FROM wilayah_boundary_1_2 b
+                LEFT JOIN wilayah_level_1_2 w ON w.kode = b.kode
+                LEFT JOIN wilayah_geometry_simplified s ON s.kode = b.kode AND s.resolution = ?
+                WHERE b.geom && ST_MakeEnvelope(?, ?, ?, ?, 4326) AND b.level = ?
+            ) f
+            ORDER BY ST_Area(f.geom) DESC
+            LIMIT ?
+            """;
+
+    private static final String VIEWPORT_KECAMATAN_SQL = """
+            SELECT f.kode, f.nama, ST_AsGeoJSON(ST_SimplifyPreserveTopology(f.geom, ?), ?) AS geojson
+            FROM (
+                SELECT DISTINCT ON (a.kode_kec) a.kode_kec AS kode, a.kecamatan AS nama, COALESCE(s.geom, a.geom) AS geom
+                FROM idn_admbnda_adm3_2023 a
+                LEFT JOIN wilayah_geometry_simplified s ON s.kode = a.kode_kec AND s.resolution = ?
+                WHERE a.geom && ST_MakeEnvelope(?, ?, ?, ?, 4326)
+                ORDER BY a.kode_kec, a.gid
+            ) f
+            ORDER BY ST_Area(f.geom) DESC
+            LIMIT ?
+            """;
+
+    private static final String VIEWPORT_DESA_SQL = """
+            SELECT f.kode, f.nama, ST_AsGeoJSON(ST_SimplifyPreserveTopology(f.geom, ?), ?) AS geojson
+            FROM (
+                SELECT DISTINCT ON (v.kode_kd) v.kode_kd AS kode, v.kel_desa AS nama, COALESCE(s.geom, v.geom) AS geom
+                FROM all_villages_2023 v
+                LEFT JOIN wilayah_geometry_simplified s ON s.kode = v.kode_kd AND s.resolution = ?
+                WHERE v.geom && ST_MakeEnvelope(?, ?, ?, ?, 4326)
+                ORDER BY v.kode_kd, v.gid
+            ) f
+            ORDER BY ST_Area(f.geom) DESC
+            LIMIT ?
+            """;
+
+    private static final int FETCH_SIZE = 100;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    public interface FeatureRowCallback {
+        void accept(String kode, String nama, String geojson);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams kode and GeoJSON geometry of the given kodes of one level to the consumer as rows arrive.
+     * Call inside a read-only transaction so the driver uses a cursor instead of buffering every row.
+     */
+    public void streamGeoJSON(AdminLevel level, Collection<String> kodes, short resolution,
+                              BiConsumer<String, String> consumer) {
+        String sql = switch (level) {
+            case PROVINSI, KABUPATEN -> PROVINSI_KABUPATEN_SQL;
+            case KECAMATAN -> KECAMATAN_SQL;
+            case DESA -> DESA_SQL;
+        };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            Array kodeArray = connection.createArrayOf("varchar", kodes.toArray());
+            statement.setShort(1, resolution);
+            statement.setArray(2, kodeArray);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(resultSet.getString("kode"), resultSet.getString("geojson")));
+    }
+
+    /**
+     * Streams every feature of a level, optionally only the descendants of parentKode. Rows are fetched
+     * {@value #EXPORT_FETCH_SIZE} at a time, so memory does not grow with the size of the export as long as
+     * this runs inside a read-only transaction.
+     */
+    public void streamLevel(AdminLevel level, String parentKode, short resolution, FeatureRowCallback callback) {
+        String sql = switch (level) {
+            case PROVINSI, KABUPATEN -> EXPORT_PROVINSI_KABUPATEN_SQL;
+            case KECAMATAN -> EXPORT_KECAMATAN_SQL;
+            case DESA -> EXPORT_DESA_SQL;
+        };
+        String kodePattern = parentKode == null || parentKode.isBlank() ? "%" : parentKode + ".%";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setShort(1, resolution);
+            statement.setString(2, kodePattern);
+            if (level == AdminLevel.PROVINSI || level == AdminLevel.KABUPATEN) {
+                statement.setShort(3, (short) level.getLevel());
+            }
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> callback.accept(resultSet.getString("kode"), resultSet.getString("nama"),
+                resultSet.getString("geojson")));
+    }
+
+    /**
+     * Streams up to limit features of one level whose bounding box intersects the envelope (GiST {@code &&}),
+     * simplified with the given tolerance. resolution picks the stored simplified geometry to start from.
+     */
+    public void streamViewport(AdminLevel level, double[] envelope, short resolution, double tolerance,
+                               int decimalDigits, int limit, FeatureRowCallback callback) {
+        String sql = switch (level) {
+            case PROVINSI, KABUPATEN -> VIEWPORT_PROVINSI_KABUPATEN_SQL;
+            case KECAMATAN -> VIEWPORT_KECAMATAN_SQL;
+            case DESA -> VIEWPORT_DESA_SQL;
+        };
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            int parameter = 1;
+            statement.setDouble(parameter++, tolerance);
+            statement.setInt(parameter++, decimalDigits);
+            statement.setShort(parameter++, resolution);
+            for (double coordinate : envelope) {
+                statement.setDouble(parameter++, coordinate);
+            }
+            if (level == AdminLevel.PROVINSI || level == AdminLevel.KABUPATEN) {
+                statement.setShort(parameter++, (short) level.getLevel());
+            }
+            statement.setInt(parameter, limit);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> callback.accept(resultSet.getString("kode"), resultSet.getString("nama"),
+                resultSet.getString("geojson")));
+    }
+
+    public byte[] findFlatGeobuf(Collection<String> kodes, short resolution) {
+        return findBinary(FLATGEOBUF_SQL, kodes, resolution, null);
+    }
+
+    /**
+     * A single kode is encoded as a plain TWKB geometry, several as a TWKB collection carrying ids.
+     */
+    public byte[] findTwkb(Collection<String> kodes, short resolution, int decimalDigits) {
+        return findBinary(kodes.size() == 1 ? TWKB_SQL : TWKB_COLLECTION_SQL, kodes, resolution, decimalDigits);
+    }
+
+    private byte[] findBinary(String sql, Collection<String> kodes, short resolution, Integer decimalDigits) {
+        List<byte[]> result = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            Array kodeArray = connection.createArrayOf("varchar", kodes.toArray());
+            int parameter = 1;
+            for (int branch = 0; branch < 3; branch++) {
+                statement.setShort(parameter++, resolution);
+                statement.setArray(parameter++, kodeArray);
+            }
+            if (decimalDigits != null) {
+                statement.setInt(parameter, decimalDigits);
+            }
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getBytes(1));
+        return result.isEmpty() ? null : result.getFirst();
+    }
+}
@@ -0,0 +1,148 @@
+package id.my.hendisantika.postgis.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkLoadRepository {
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    public record IndexDefinition(String name, String definition) {
+    }
+
+    public interface CopyFeeder {
+        void feed(CopyIn copyIn) throws IOException, SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    public List<String> findColumns(String table) {
+        return jdbcTemplate.queryForList("""
+                SELECT column_name FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = ?
+                ORDER BY ordinal_position
+                """, String.class, table);
+    }
+
+    // GiST maintenance per row is what makes a bulk load slow; these are dropped before and rebuilt after
+    public List<IndexDefinition> findGistIndexes(String table) {
+        return jdbcTemplate.query("""
+                SELECT indexname, indexdef FROM pg_indexes
+                WHERE schemaname = current_schema() AND tablename = ? AND indexdef ILIKE '%USING gist%'
+                """, (resultSet, rowNum) -> new IndexDefinition(resultSet.getString(1), resultSet.getString(2)), table);
+    }
+
+    public void dropIndex(IndexDefinition index) {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + quote(index.name()));
+    }
+
+    public void createIndex(IndexDefinition index) {
+        jdbcTemplate.execute(index.definition());
+    }
+
+    /**
+     * Empty unlogged copy of table without indexes or constraints that the files are copied into first, so a failed
+     * file never touches the table itself. Returns its name.
+     */
+    public String createStagingTable(String table) {
+        String staging = table + "_load";
+        dropTable(staging);
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + quote(staging) + " (LIKE " + quote(table) + " INCLUDING DEFAULTS)");
+        return staging;
+    }
+
+    public void dropTable(String table) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + quote(table));
+    }
+
+    /**
+     * Moves the staged rows into table, after emptying it when truncate is set. Meant to run inside the transaction
+     * that also drops and recreates the GiST indexes.
+     */
+    public long replaceFrom(String staging, String table, boolean truncate) {
+        if (truncate) {
+            jdbcTemplate.execute("TRUNCATE TABLE " + quote(table));
+        }
+        return jdbcTemplate.update("INSERT INTO " + quote(table) + " SELECT * FROM " + quote(staging));
+    }
+
+    public boolean hasRows(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + quote(table) + ")", Boolean.class));
+    }
+
+    public void analyze(String table) {
+        jdbcTemplate.execute("ANALYZE " + quote(table));
+    }
+
+    /**
+     * COPY ... FROM STDIN fed from a stream as-is, e.g. CSV with hex EWKB geometries. Returns the rows copied.
+     */
+    public long copyIn(String sql, InputStream in) throws SQLException, IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return copyManager(connection).copyIn(sql, in, COPY_BUFFER_SIZE);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * COPY ... FROM STDIN with rows written by the feeder, for sources that are converted on the fly.
+     */
+    public long copyIn(String sql, CopyFeeder feeder) throws SQLException, IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = copyManager(connection).copyIn(sql);
+            try {
+                feeder.feed(copyIn);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    public static String copySql(String table, List<String> columns) {
+        return "COPY " + quote(table) + " (" + columns.stream().map(BulkLoadRepository::quote)
+                .collect(Collectors.joining(", ")) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
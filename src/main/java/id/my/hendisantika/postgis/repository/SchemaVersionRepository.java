@@ -0,0 +1,39 @@
+package id.my.hendisantika.postgis.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.45
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SchemaVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Rank and version of the latest successful Flyway migration, e.g. "52:50". The rank also moves when a
+     * repeatable migration re-runs, so any re-migration of data changes it.
+     */
+    public String findCurrentVersion() {
+        List<String> versions = jdbcTemplate.queryForList("""
+                SELECT installed_rank || ':' || coalesce(version, 'R')
+                FROM flyway_schema_history
+                WHERE success
+                ORDER BY installed_rank DESC
+                LIMIT 1
+                """, String.class);
+        return versions.isEmpty() ? "0" : versions.getFirst();
+    }
+}
@@ -0,0 +1,91 @@
+package id.my.hendisantika.postgis.repository;
+
+import id.my.hendisantika.postgis.dto.GeometryWkb;
+import id.my.hendisantika.postgis.entity.SimplifiedGeometry;
+import id.my.hendisantika.postgis.entity.SimplifiedGeometryId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 11.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+public interface SimplifiedGeometryRepository extends JpaRepository<SimplifiedGeometry, SimplifiedGeometryId> {
+
+    @Query(value = "SELECT geojson FROM wilayah_geometry_simplified WHERE kode = :kode AND resolution = :resolution", nativeQuery = true)
+    String findGeoJSON(@Param("kode") String kode, @Param("resolution") short resolution);
+
+    // Must be consumed inside a read-only transaction; rows are fetched from a server-side cursor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT kode AS kode, ST_AsBinary(geom) AS wkb FROM wilayah_geometry_simplified WHERE level = :level AND resolution = :resolution", nativeQuery = true)
+    Stream<GeometryWkb> streamWkb(@Param("level") short level, @Param("resolution") short resolution);
+
+    long countByLevelAndIdResolution(Short level, Short resolution);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO wilayah_geometry_simplified (kode, level, resolution, geom, geojson)
+            SELECT t.kode, 3, :resolution, t.geom, ST_AsGeoJSON(t.geom, :digits)
+            FROM (
+                SELECT DISTINCT ON (kode_kec) kode_kec AS kode,
+                       ST_SimplifyPreserveTopology(geom, :tolerance) AS geom
+                FROM idn_admbnda_adm3_2023
+                WHERE kode_kk = :kodeKk AND kode_kec IS NOT NULL
+                ORDER BY kode_kec, gid
+            ) t
+            WHERE t.geom IS NOT NULL AND NOT ST_IsEmpty(t.geom)
+            ON CONFLICT (kode, resolution) DO UPDATE SET geom = EXCLUDED.geom, geojson = EXCLUDED.geojson
+            """, nativeQuery = true)
+    int refreshKecamatan(@Param("kodeKk") String kodeKk, @Param("resolution") short resolution,
+                         @Param("tolerance") double tolerance, @Param("digits") int digits);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO wilayah_geometry_simplified (kode, level, resolution, geom, geojson)
+            SELECT t.kode, 4, :resolution, t.geom, ST_AsGeoJSON(t.geom, :digits)
+            FROM (
+                SELECT DISTINCT ON (kode_kd) kode_kd AS kode,
+                       ST_SimplifyPreserveTopology(geom, :tolerance) AS geom
+                FROM all_villages_2023
+                WHERE kode_kk = :kodeKk AND kode_kd IS NOT NULL
+                ORDER BY kode_kd, gid
+            ) t
+            WHERE t.geom IS NOT NULL AND NOT ST_IsEmpty(t.geom)
+            ON CONFLICT (kode, resolution) DO UPDATE SET geom = EXCLUDED.geom, geojson = EXCLUDED.geojson
+            """, nativeQuery = true)
+    int refreshDesa(@Param("kodeKk") String kodeKk, @Param("resolution") short resolution,
+                    @Param("tolerance") double tolerance, @Param("digits") int digits);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO wilayah_geometry_simplified (kode, level, resolution, geom, geojson)
+            SELECT t.kode, t.level, :resolution, t.geom, ST_AsGeoJSON(t.geom, :digits)
+            FROM (
+                SELECT kode, level, ST_SimplifyPreserveTopology(geom, :tolerance) AS geom
+                FROM wilayah_boundary_1_2
+            ) t
+            WHERE t.geom IS NOT NULL AND NOT ST_IsEmpty(t.geom)
+            ON CONFLICT (kode, resolution) DO UPDATE SET geom = EXCLUDED.geom, geojson = EXCLUDED.geojson
+            """, nativeQuery = true)
+    int refreshProvinsiKabupaten(@Param("resolution") short resolution,
+                                 @Param("tolerance") double tolerance, @Param("digits") int digits);
+}
@@ -1,12 +1,19 @@
 package id.my.hendisantika.postgis.repository;
 
+import id.my.hendisantika.postgis.dto.GeometryWkb;
+import id.my.hendisantika.postgis.dto.NearestRow;
 import id.my.hendisantika.postgis.entity.SubDistrict;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Created by IntelliJ IDEA.
@@ -29,4 +36,48 @@ public interface SubDistrictRepository extends JpaRepository<SubDistrict, Intege
     @Query(value = "SELECT ST_AsGeoJSON(ST_Union(geom)) FROM idn_admbnda_adm3_2023 WHERE kode_kk = :kodeKk", nativeQuery = true)
     String findKabupatenBoundaryAsGeoJSON(@Param("kodeKk") String kodeKk);
 
+    @Query(value = """
+            WITH bounds AS (
+                SELECT ST_TileEnvelope(:z, :x, :y) AS env,
+                       ST_Transform(ST_TileEnvelope(:z, :x, :y), 4326) AS env4326
+            )
+            SELECT ST_AsMVT(tile, 'kecamatan', 4096, 'geom') FROM (
+                SELECT s.kode_kec AS kode, s.kecamatan AS nama, s.kab_kota, s.provinsi,
+                       ST_AsMVTGeom(ST_Transform(s.geom, 3857), bounds.env, 4096, 64, true) AS geom
+                FROM idn_admbnda_adm3_2023 s, bounds
+                WHERE s.geom && bounds.env4326
+            ) tile
+            """, nativeQuery = true)
+    byte[] findVectorTile(@Param("z") int z, @Param("x") int x, @Param("y") int y);
+
+
+    // Must be consumed inside a read-only transaction; rows are fetched from a server-side cursor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT DISTINCT ON (kode_kec) kode_kec AS kode, ST_AsBinary(geom) AS wkb FROM idn_admbnda_adm3_2023 WHERE kode_kec IS NOT NULL ORDER BY kode_kec, gid", nativeQuery = true)
+    Stream<GeometryWkb> streamAllAsWkb();
+
+    /**
+     * Kecamatan nearest to the point. The GiST index orders candidates with {@code <->} (planar, in degrees); their
+     * geodesic distance to the centroid, or to the boundary when boundary is true, gives the final order.
+     */
+    @Query(value = """
+            SELECT r.kode, r.nama, ST_Y(r.centroid) AS lat, ST_X(r.centroid) AS lng, r.distance
+            FROM (
+                SELECT DISTINCT ON (c.kode) c.kode, c.nama, ST_Centroid(c.geom) AS centroid,
+                       ST_Distance(CASE WHEN :boundary THEN c.geom ELSE ST_Centroid(c.geom) END::geography,
+                                   ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)::geography) AS distance
+                FROM (
+                    SELECT t.kode_kec AS kode, t.kecamatan AS nama, t.geom
+                    FROM idn_admbnda_adm3_2023 t
+                    WHERE t.kode_kec IS NOT NULL
+                    ORDER BY t.geom <-> ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)
+                    LIMIT :candidates
+                ) c
+                ORDER BY c.kode, distance
+            ) r
+            ORDER BY r.distance
+            LIMIT :k
+            """, nativeQuery = true)
+    List<NearestRow> findNearest(@Param("lat") double lat, @Param("lng") double lng, @Param("boundary") boolean boundary,
+                                 @Param("candidates") int candidates, @Param("k") int k);
 }
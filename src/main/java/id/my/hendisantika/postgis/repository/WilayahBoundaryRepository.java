@@ -0,0 +1,71 @@
+package id.my.hendisantika.postgis.repository;
+
+import id.my.hendisantika.postgis.entity.WilayahBoundary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+public interface WilayahBoundaryRepository extends JpaRepository<WilayahBoundary, String> {
+
+    @Query(value = "SELECT geojson FROM wilayah_boundary_1_2 WHERE kode = :kode", nativeQuery = true)
+    String findGeoJSONByKode(@Param("kode") String kode);
+
+    long countByLevel(Short level);
+
+    @Query(value = "SELECT DISTINCT kode_kk FROM idn_admbnda_adm3_2023 WHERE kode_kk IS NOT NULL ORDER BY kode_kk", nativeQuery = true)
+    List<String> findSourceKabupatenKodes();
+
+    @Query(value = "SELECT DISTINCT kode_prov FROM idn_admbnda_adm3_2023 WHERE kode_prov IS NOT NULL ORDER BY kode_prov", nativeQuery = true)
+    List<String> findSourceProvinsiKodes();
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO wilayah_boundary_1_2 (kode, level, geom, geojson, refreshed_at)
+            SELECT u.kode, 2, u.geom, ST_AsGeoJSON(u.geom), now()
+            FROM (
+                SELECT CAST(:kodeKk AS VARCHAR) AS kode,
+                       ST_Multi(ST_CollectionExtract(ST_Union(geom), 3)) AS geom
+                FROM idn_admbnda_adm3_2023
+                WHERE kode_kk = :kodeKk
+            ) u
+            WHERE u.geom IS NOT NULL
+            ON CONFLICT (kode) DO UPDATE
+                SET geom = EXCLUDED.geom, geojson = EXCLUDED.geojson, refreshed_at = EXCLUDED.refreshed_at
+            """, nativeQuery = true)
+    int refreshKabupaten(@Param("kodeKk") String kodeKk);
+
+    // Provinsi are unioned from the already materialized kabupaten rows, not from every kecamatan again
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO wilayah_boundary_1_2 (kode, level, geom, geojson, refreshed_at)
+            SELECT u.kode, 1, u.geom, ST_AsGeoJSON(u.geom), now()
+            FROM (
+                SELECT CAST(:kodeProv AS VARCHAR) AS kode,
+                       ST_Multi(ST_CollectionExtract(ST_Union(geom), 3)) AS geom
+                FROM wilayah_boundary_1_2
+                WHERE level = 2 AND kode LIKE CONCAT(:kodeProv, '.%')
+            ) u
+            WHERE u.geom IS NOT NULL
+            ON CONFLICT (kode) DO UPDATE
+                SET geom = EXCLUDED.geom, geojson = EXCLUDED.geojson, refreshed_at = EXCLUDED.refreshed_at
+            """, nativeQuery = true)
+    int refreshProvinsi(@Param("kodeProv") String kodeProv);
+}
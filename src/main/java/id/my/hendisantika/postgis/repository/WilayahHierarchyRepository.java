@@ -0,0 +1,57 @@
+package id.my.hendisantika.postgis.repository;
+
+import id.my.hendisantika.postgis.entity.WilayahHierarchy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.20
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+public interface WilayahHierarchyRepository extends JpaRepository<WilayahHierarchy, String> {
+
+    // Every descendant of root at one level, e.g. all desa under provinsi 91
+    @Query(value = """
+            SELECT * FROM wilayah_hierarchy
+            WHERE path <@ text2ltree(:root) AND level = :level
+            ORDER BY path
+            """, nativeQuery = true)
+    List<WilayahHierarchy> findSubtree(@Param("root") String root, @Param("level") short level);
+
+    // Every descendant of root at all levels, root itself excluded
+    @Query(value = """
+            SELECT * FROM wilayah_hierarchy
+            WHERE path <@ text2ltree(:root) AND path <> text2ltree(:root)
+            ORDER BY path
+            """, nativeQuery = true)
+    List<WilayahHierarchy> findDescendants(@Param("root") String root);
+
+    @Query(value = "SELECT count(*) FROM wilayah_hierarchy WHERE path <@ text2ltree(:root) AND level = :level", nativeQuery = true)
+    long countSubtree(@Param("root") String root, @Param("level") short level);
+
+    // Provinsi first, the node itself last
+    @Query(value = """
+            SELECT * FROM wilayah_hierarchy
+            WHERE path @> text2ltree(:kode)
+            ORDER BY nlevel(path)
+            """, nativeQuery = true)
+    List<WilayahHierarchy> findAncestorChain(@Param("kode") String kode);
+
+    @Transactional
+    @Modifying
+    @Query(value = "REFRESH MATERIALIZED VIEW CONCURRENTLY wilayah_hierarchy", nativeQuery = true)
+    void refresh();
+}
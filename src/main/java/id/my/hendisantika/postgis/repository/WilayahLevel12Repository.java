@@ -1,5 +1,8 @@
 package id.my.hendisantika.postgis.repository;
 
+import id.my.hendisantika.postgis.dto.FetchFootprint;
+import id.my.hendisantika.postgis.dto.ProvinsiDetail;
+import id.my.hendisantika.postgis.dto.WilayahSummary;
 import id.my.hendisantika.postgis.entity.WilayahLevel12;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Created by IntelliJ IDEA.
@@ -21,18 +25,36 @@ import java.util.List;
 @Repository
 public interface WilayahLevel12Repository extends JpaRepository<WilayahLevel12, String> {
 
-    @Query("SELECT w FROM WilayahLevel12 w WHERE LENGTH(w.kode) = 2 ORDER BY w.kode")
-    List<WilayahLevel12> findAllProvinsi();
-
-    @Query("SELECT w FROM WilayahLevel12 w WHERE LENGTH(w.kode) = 5 AND w.kode LIKE CONCAT(:provinsiKode, '.%') ORDER BY w.kode")
-    List<WilayahLevel12> findKabupatenByProvinsi(@Param("provinsiKode") String provinsiKode);
-
-    @Query("SELECT w FROM WilayahLevel12 w WHERE LENGTH(w.kode) = 8 AND w.kode LIKE CONCAT(:kabupatenKode, '.%') ORDER BY w.kode")
-    List<WilayahLevel12> findKecamatanByKabupaten(@Param("kabupatenKode") String kabupatenKode);
-
-    @Query("SELECT w FROM WilayahLevel12 w WHERE LENGTH(w.kode) = 13 AND w.kode LIKE CONCAT(:kecamatanKode, '.%') ORDER BY w.kode")
-    List<WilayahLevel12> findDesaByKecamatan(@Param("kecamatanKode") String kecamatanKode);
-
-    @Query("SELECT w FROM WilayahLevel12 w WHERE LOWER(w.nama) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY LENGTH(w.kode), w.kode")
-    List<WilayahLevel12> searchByNama(@Param("keyword") String keyword);
+    // List queries select only what a dropdown or marker renders; the path TEXT column stays in the database
+    @Query("SELECT w.kode AS kode, w.nama AS nama, w.lat AS lat, w.lng AS lng FROM WilayahLevel12 w WHERE LENGTH(w.kode) = 2 ORDER BY w.kode")
+    List<WilayahSummary> findAllProvinsi();
+
+    @Query("SELECT w.kode AS kode, w.nama AS nama, w.lat AS lat, w.lng AS lng FROM WilayahLevel12 w WHERE LOWER(w.nama) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY LENGTH(w.kode), w.kode")
+    List<WilayahSummary> searchByNama(@Param("keyword") String keyword);
+
+    @Query("SELECT w.kode AS kode, w.nama AS nama, w.lat AS lat, w.lng AS lng FROM WilayahLevel12 w WHERE LENGTH(w.kode) IN (2, 5)")
+    List<WilayahSummary> findAllProvinsiKabupatenSummaries();
+
+    // Columns of /wilayah/api/all
+    @Query("""
+            SELECT new id.my.hendisantika.postgis.dto.ProvinsiDetail(w.kode, w.nama, w.ibukota, w.lat, w.lng, w.luas, w.penduduk)
+            FROM WilayahLevel12 w WHERE LENGTH(w.kode) = 2 ORDER BY w.kode
+            """)
+    List<ProvinsiDetail> findAllProvinsiDetails();
+
+    // path is lazy; the boundary fallback reads it on its own
+    @Query("SELECT w.path FROM WilayahLevel12 w WHERE w.kode = :kode")
+    Optional<String> findPathByKode(@Param("kode") String kode);
+
+    /**
+     * Rows and text-protocol bytes of whole entities against the list projection, per kode length.
+     */
+    @Query(value = """
+            SELECT count(*) AS "rowCount",
+                   COALESCE(sum(octet_length(w::text)), 0) AS "entityBytes",
+                   COALESCE(sum(octet_length(ROW(w.kode, w.nama, w.lat, w.lng)::text)), 0) AS "projectionBytes"
+            FROM wilayah_level_1_2 w
+            WHERE length(w.kode) = :kodeLength
+            """, nativeQuery = true)
+    FetchFootprint measureFootprint(@Param("kodeLength") int kodeLength);
 }
@@ -1,5 +1,7 @@
 package id.my.hendisantika.postgis.repository;
 
+import id.my.hendisantika.postgis.dto.FetchFootprint;
+import id.my.hendisantika.postgis.dto.WilayahSummary;
 import id.my.hendisantika.postgis.entity.WilayahLevel34;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Created by IntelliJ IDEA.
@@ -21,9 +24,18 @@ import java.util.List;
 @Repository
 public interface WilayahLevel34Repository extends JpaRepository<WilayahLevel34, String> {
 
-    @Query("SELECT w FROM WilayahLevel34 w WHERE w.parentKode = :kabupatenKode AND w.level = 3 ORDER BY w.kode")
-    List<WilayahLevel34> findKecamatanByKabupaten(@Param("kabupatenKode") String kabupatenKode);
+    @Query("SELECT w.kode AS kode, w.nama AS nama, w.lat AS lat, w.lng AS lng FROM WilayahLevel34 w WHERE w.level IN (3, 4)")
+    List<WilayahSummary> findAllKecamatanDesaSummaries();
 
-    @Query("SELECT w FROM WilayahLevel34 w WHERE w.parentKode = :kecamatanKode AND w.level = 4 ORDER BY w.kode")
-    List<WilayahLevel34> findDesaByKecamatan(@Param("kecamatanKode") String kecamatanKode);
+    @Query("SELECT w.path FROM WilayahLevel34 w WHERE w.kode = :kode")
+    Optional<String> findPathByKode(@Param("kode") String kode);
+
+    @Query(value = """
+            SELECT count(*) AS "rowCount",
+                   COALESCE(sum(octet_length(w::text)), 0) AS "entityBytes",
+                   COALESCE(sum(octet_length(ROW(w.kode, w.nama, w.lat, w.lng)::text)), 0) AS "projectionBytes"
+            FROM wilayah_level_3_4 w
+            WHERE w.level = :level
+            """, nativeQuery = true)
+    FetchFootprint measureFootprint(@Param("level") int level);
 }
@@ -0,0 +1,82 @@
+package id.my.hendisantika.postgis.repository;
+
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.05
+ * To change this template use File | Settings | File Templates.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WilayahStatsRepository {
+
+    // Geodesic area in km² of the 2023 geometries, one row per kode as in the feature queries
+    private static final String KECAMATAN_AREA_SQL = """
+            SELECT DISTINCT ON (a.kode_kec) a.kode_kec AS kode, ST_Area(a.geom::geography) / 1e6 AS area
+            FROM idn_admbnda_adm3_2023 a
+            WHERE a.kode_kec LIKE ?
+            ORDER BY a.kode_kec, a.gid
+            """;
+
+    private static final String DESA_AREA_SQL = """
+            SELECT DISTINCT ON (v.kode_kd) v.kode_kd AS kode, ST_Area(v.geom::geography) / 1e6 AS area
+            FROM all_villages_2023 v
+            WHERE v.kode_kd LIKE ?
+            ORDER BY v.kode_kd, v.gid
+            """;
+
+    private static final String POPULATION_SQL = """
+            SELECT w.kode, w.penduduk
+            FROM wilayah_level_1_2 w
+            WHERE w.kode LIKE ? AND w.penduduk IS NOT NULL
+            """;
+
+    private static final int FETCH_SIZE = 1000;
+
+    public interface MeasureCallback {
+        void accept(String kode, double value);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams the area of every kecamatan or desa whose kode starts with kodePrefix ("" for all). Kode segments have
+     * a fixed width, so a plain prefix matches exactly the kode itself and its descendants.
+     */
+    public void streamAreas(AdminLevel level, String kodePrefix, MeasureCallback callback) {
+        String sql = switch (level) {
+            case KECAMATAN -> KECAMATAN_AREA_SQL;
+            case DESA -> DESA_AREA_SQL;
+            case PROVINSI, KABUPATEN -> throw new IllegalArgumentException("Area is rolled up from kecamatan, not measured");
+        };
+        stream(sql, kodePrefix, "area", callback);
+    }
+
+    /**
+     * Streams penduduk of every provinsi and kabupaten whose kode starts with kodePrefix ("" for all).
+     */
+    public void streamPopulation(String kodePrefix, MeasureCallback callback) {
+        stream(POPULATION_SQL, kodePrefix, "penduduk", callback);
+    }
+
+    private void stream(String sql, String kodePrefix, String column, MeasureCallback callback) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setString(1, kodePrefix + "%");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> callback.accept(resultSet.getString("kode"), resultSet.getDouble(column)));
+    }
+}
@@ -0,0 +1,85 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.30
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BoundaryExportRunner implements ApplicationRunner {
+
+    // java -jar app.jar --spring.main.web-application-type=none --export=desa --export-parent=32
+    //      --export-output=desa-32.ndjson.gz [--export-resolution=MEDIUM]
+    // The format follows the file name: .ndjson for newline-delimited, anything else a FeatureCollection; .gz compresses.
+    private final BoundaryFeatureService boundaryFeatureService;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        String level = option(args, "export");
+        if (level == null) {
+            return;
+        }
+
+        AdminLevel adminLevel = AdminLevel.ofSlug(level)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown level for --export: " + level));
+        String output = option(args, "export-output");
+        if (output == null) {
+            throw new IllegalArgumentException("--export-output is required with --export");
+        }
+        String resolution = option(args, "export-resolution");
+
+        Path path = Path.of(output).toAbsolutePath();
+        boolean gzip = output.endsWith(".gz");
+        boolean newlineDelimited = output.replaceFirst("\\.gz$", "").endsWith(".ndjson");
+        // Written next to the target and moved into place only when complete; a failed export leaves no file behind
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".part");
+        try {
+            OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024);
+            try (OutputStream out = gzip ? new GZIPOutputStream(file, 64 * 1024) : file) {
+                boundaryFeatureService.export(adminLevel, option(args, "export-parent"),
+                        resolution != null ? GeometryResolution.valueOf(resolution.toUpperCase()) : GeometryResolution.FULL,
+                        newlineDelimited, out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        log.info("Export written to {} ({} bytes)", path, Files.size(path));
+
+        // A one-shot export, not a server start
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+}
@@ -0,0 +1,145 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.GeometryFormat;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.repository.BoundaryFeatureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BoundaryFeatureService {
+
+    // TWKB stores at most 7 decimal digits, already ~1 cm at the equator
+    private static final int TWKB_MAX_DIGITS = 7;
+
+    private final BoundaryFeatureRepository boundaryFeatureRepository;
+    private final WilayahTreeService wilayahTreeService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final QueryMetrics queryMetrics;
+    private final WilayahProperties properties;
+
+    /**
+     * Kodes of every descendant of parentKode at childLevel, or empty when the hierarchy is not loaded yet.
+     */
+    public Optional<List<String>> findChildKodes(String parentKode, AdminLevel childLevel) {
+        return wilayahTreeService.current()
+                .map(tree -> tree.children(parentKode, childLevel).stream().map(WilayahNode::getKode).toList());
+    }
+
+    /**
+     * Writes one FeatureCollection with a feature per known kode. Every level present in the list costs
+     * a single query; features are written as rows arrive instead of being collected first.
+     */
+    public long writeFeatureCollection(Collection<String> kodes, GeometryResolution resolution, OutputStream out) {
+        Map<AdminLevel, Set<String>> kodesByLevel = new EnumMap<>(AdminLevel.class);
+        for (String kode : kodes) {
+            AdminLevel.ofKode(kode).ifPresent(level ->
+                    kodesByLevel.computeIfAbsent(level, k -> new LinkedHashSet<>()).add(kode));
+        }
+
+        Optional<WilayahTree> tree = wilayahTreeService.current();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long start = System.nanoTime();
+        try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(objectMapper, out, false)) {
+            kodesByLevel.forEach((level, levelKodes) -> queryMetrics.observe("features", level, null,
+                    () -> readOnly.executeWithoutResult(status -> boundaryFeatureRepository.streamGeoJSON(level, levelKodes,
+                            resolution.getCode(), (kode, geojson) -> {
+                                String nama = tree.flatMap(t -> t.find(kode)).map(WilayahNode::getNama).orElse(null);
+                                writer.writeFeature(kode, nama, level.getLabel(), geojson);
+                            }))));
+            writer.finish();
+            log.debug("Streamed {} features for {} kodes at {} resolution in {} ms", writer.getCount(), kodes.size(),
+                    resolution, (System.nanoTime() - start) / 1_000_000);
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Encodes the geometries of the given kodes as one binary body, or empty when none of them is known.
+     */
+    public Optional<byte[]> encode(Collection<String> kodes, GeometryResolution resolution, GeometryFormat format) {
+        byte[] body = queryMetrics.observe(format.name().toLowerCase(Locale.ROOT), null, null, () -> switch (format) {
+            case TWKB -> boundaryFeatureRepository.findTwkb(kodes, resolution.getCode(),
+                    Math.min(resolution.getDecimalDigits(), TWKB_MAX_DIGITS));
+            case FLATGEOBUF -> boundaryFeatureRepository.findFlatGeobuf(kodes, resolution.getCode());
+            case GEOJSON, FEATURE -> throw new IllegalArgumentException("GeoJSON is streamed, not encoded");
+        });
+        return Optional.ofNullable(body).filter(bytes -> bytes.length > 0);
+    }
+
+    /**
+     * Encodes every feature of childLevel under parentKode as one TopoJSON topology, or empty when there is none.
+     * The topology is built from the FULL geometries and only its arcs are simplified, so a border shared by two
+     * features is simplified once and both sides still meet.
+     */
+    public Optional<byte[]> encodeTopology(AdminLevel childLevel, String parentKode, GeometryResolution resolution) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long start = System.nanoTime();
+        TopologyBuilder builder = new TopologyBuilder(properties.getTopology().getQuantization());
+        queryMetrics.observe("topology", childLevel, parentKode, () -> readOnly.executeWithoutResult(status ->
+                boundaryFeatureRepository.streamLevel(childLevel, parentKode, GeometryResolution.FULL.getCode(),
+                        (kode, nama, geojson) -> builder.add(TopoJsonEncoder.parse(objectMapper, kode, nama, geojson)))));
+        if (builder.size() == 0) {
+            return Optional.empty();
+        }
+
+        TopologyBuilder.Topology topology = builder.build(resolution.isSimplified() ? resolution.getTolerance() : 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        TopoJsonEncoder.write(objectMapper, topology, childLevel.getLabel(), out);
+        log.debug("Encoded {} {} features under {} as {} arcs, {} bytes at {} resolution in {} ms", builder.size(),
+                childLevel.getSlug(), parentKode, topology.arcs().size(), out.size(), resolution,
+                (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(out.toByteArray());
+    }
+
+    /**
+     * Writes every feature of a level (or of one parent's subtree) as a FeatureCollection or as
+     * newline-delimited GeoJSON. Rows come from a server-side cursor, so heap use does not depend on the export size.
+     */
+    public long export(AdminLevel level, String parentKode, GeometryResolution resolution,
+                       boolean newlineDelimited, OutputStream out) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long start = System.nanoTime();
+        try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(objectMapper, out, newlineDelimited)) {
+            queryMetrics.observe("export", level, parentKode, () -> readOnly.executeWithoutResult(status ->
+                    boundaryFeatureRepository.streamLevel(level, parentKode, resolution.getCode(),
+                            (kode, nama, geojson) -> writer.writeFeature(kode, nama, level.getLabel(), geojson))));
+            writer.finish();
+            long elapsedMillis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+            log.info("Exported {} {} features{} at {} resolution in {} ms ({} features/s)", writer.getCount(),
+                    level.getSlug(), parentKode != null ? " under " + parentKode : "", resolution, elapsedMillis,
+                    writer.getCount() * 1000 / elapsedMillis);
+            return writer.getCount();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package id.my.hendisantika.postgis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import id.my.hendisantika.postgis.dto.BoundaryData;
+import id.my.hendisantika.postgis.dto.CachedPayload;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.GeometryFormat;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 14.10
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BoundaryPayloadService {
+
+    private final WilayahService wilayahService;
+    private final BoundaryFeatureService boundaryFeatureService;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedPayload> boundaryPayloadCache;
+
+    public Optional<CachedPayload> getBoundary(String kode, GeometryResolution resolution) {
+        String key = "boundary:" + kode + ":" + resolution.name();
+        return Optional.ofNullable(boundaryPayloadCache.get(key, k -> wilayahService.getBoundaryData(kode, resolution)
+                .map(this::toPayload)
+                .orElse(null)));
+    }
+
+    public Optional<CachedPayload> getBoundary(String kode, GeometryResolution resolution, GeometryFormat format) {
+        if (format == GeometryFormat.GEOJSON) {
+            return getBoundary(kode, resolution);
+        }
+        String key = "boundary:" + kode + ":" + resolution.name() + ":" + format.name();
+        if (format == GeometryFormat.FEATURE) {
+            return Optional.ofNullable(boundaryPayloadCache.get(key, k -> wilayahService.getBoundaryData(kode, resolution)
+                    .map(this::toFeaturePayload)
+                    .orElse(null)));
+        }
+        return Optional.ofNullable(boundaryPayloadCache.get(key, k -> boundaryFeatureService.encode(List.of(kode), resolution, format)
+                .map(body -> CachedPayload.of(body, strongEtag(body)))
+                .orElse(null)));
+    }
+
+    public Optional<CachedPayload> getBoundaries(String kode) {
+        String key = "boundaries:" + kode;
+        return Optional.ofNullable(boundaryPayloadCache.get(key, k -> wilayahService.getByKodeWithPath(kode)
+                .map(this::toPayload)
+                .orElse(null)));
+    }
+
+    // One topology per parent, child level and resolution; dropped with the rest when the boundary store is rebuilt
+    public Optional<CachedPayload> getTopology(String parentKode, AdminLevel childLevel, GeometryResolution resolution) {
+        String key = "topology:" + parentKode + ":" + childLevel.getLevel() + ":" + resolution.name();
+        return Optional.ofNullable(boundaryPayloadCache.get(key, k -> boundaryFeatureService.encodeTopology(childLevel, parentKode, resolution)
+                .map(body -> CachedPayload.of(body, strongEtag(body)))
+                .orElse(null)));
+    }
+
+    public void invalidateAll() {
+        boundaryPayloadCache.invalidateAll();
+    }
+
+    private CachedPayload toPayload(Object value) {
+        byte[] body = objectMapper.writeValueAsBytes(value);
+        return CachedPayload.of(body, strongEtag(body));
+    }
+
+    /**
+     * GeoJSON Feature whose geometry is the ST_AsGeoJSON text copied verbatim, so neither side parses it twice.
+     * A legacy path array (lat/lng pairs, not GeoJSON) is kept as the "path" property with a null geometry; it is
+     * free text in the table, so it is parsed here once per cached payload and left out when it is not a JSON array.
+     */
+    private CachedPayload toFeaturePayload(BoundaryData data) {
+        String coordinates = data.getCoordinates();
+        boolean geoJson = coordinates != null && coordinates.startsWith("{");
+        JsonNode path = coordinates != null && !geoJson ? parsePath(data.getKode(), coordinates) : null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(coordinates != null ? coordinates.length() + 256 : 256);
+        try (JsonGenerator generator = objectMapper.writer().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringProperty("type", "Feature");
+            generator.writeStringProperty("id", data.getKode());
+            generator.writeName("properties");
+            generator.writeStartObject();
+            generator.writeStringProperty("kode", data.getKode());
+            generator.writeStringProperty("nama", data.getNama());
+            generator.writeStringProperty("level", data.getLevel());
+            writeNumber(generator, "lat", data.getLat());
+            writeNumber(generator, "lng", data.getLng());
+            writeNumber(generator, "tolerance", data.getTolerance());
+            if (path != null) {
+                generator.writeName("path");
+                generator.writeTree(path);
+            }
+            generator.writeEndObject();
+            generator.writeName("geometry");
+            if (geoJson) {
+                generator.writeRawValue(coordinates);
+            } else {
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+        }
+        byte[] body = out.toByteArray();
+        return CachedPayload.of(body, strongEtag(body));
+    }
+
+    private JsonNode parsePath(String kode, String path) {
+        try {
+            JsonNode node = objectMapper.readTree(path);
+            if (node.isArray()) {
+                return node;
+            }
+        } catch (JacksonException e) {
+            // Falls through to the warning below
+        }
+        log.warn("Ignoring path of {}: not a JSON array", kode);
+        return null;
+    }
+
+    private static void writeNumber(JsonGenerator generator, String name, Double value) {
+        if (value != null) {
+            generator.writeNumberProperty(name, value);
+        }
+    }
+
+    static String strongEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
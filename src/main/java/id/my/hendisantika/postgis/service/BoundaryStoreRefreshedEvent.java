@@ -0,0 +1,16 @@
+package id.my.hendisantika.postgis.service;
+
+import java.time.Instant;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.10
+ * To change this template use File | Settings | File Templates.
+ */
+public record BoundaryStoreRefreshedEvent(Instant finishedAt, int failures) {
+}
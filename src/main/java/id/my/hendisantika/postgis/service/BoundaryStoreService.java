@@ -0,0 +1,139 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.BoundaryStoreStatus;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.repository.SimplifiedGeometryRepository;
+import id.my.hendisantika.postgis.repository.WilayahBoundaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 10.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BoundaryStoreService {
+
+    private final WilayahBoundaryRepository boundaryRepository;
+    private final SimplifiedGeometryRepository simplifiedGeometryRepository;
+    private final WilayahProperties properties;
+    private final TaskExecutor applicationTaskExecutor;
+    private final BoundaryPayloadService boundaryPayloadService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Instant lastStartedAt;
+    private volatile Instant lastFinishedAt;
+    private volatile int lastFailures;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (properties.getBoundaryStore().isRefreshOnStartup()
+                && (boundaryRepository.count() == 0 || simplifiedGeometryRepository.count() == 0)) {
+            log.info("Boundary store is empty, building boundaries and simplified geometries in the background");
+            refresh();
+        }
+    }
+
+    /**
+     * Starts a background rebuild of the store. Returns false when a rebuild is already running.
+     */
+    public boolean refresh() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        applicationTaskExecutor.execute(() -> {
+            try {
+                rebuild();
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public BoundaryStoreStatus getStatus() {
+        return BoundaryStoreStatus.builder()
+                .running(running.get())
+                .provinsiCount(boundaryRepository.countByLevel((short) 1))
+                .kabupatenCount(boundaryRepository.countByLevel((short) 2))
+                .lastStartedAt(lastStartedAt)
+                .lastFinishedAt(lastFinishedAt)
+                .lastFailures(lastFailures)
+                .build();
+    }
+
+    private void rebuild() {
+        lastStartedAt = Instant.now();
+        int failures = 0;
+
+        // Kabupaten first: provinsi rows are unioned from the kabupaten rows.
+        // Kecamatan and desa are simplified per kabupaten to keep each transaction small.
+        List<String> kabupatenKodes = boundaryRepository.findSourceKabupatenKodes();
+        for (String kodeKk : kabupatenKodes) {
+            try {
+                boundaryRepository.refreshKabupaten(kodeKk);
+                for (GeometryResolution resolution : GeometryResolution.values()) {
+                    if (!resolution.isSimplified()) continue;
+                    simplifiedGeometryRepository.refreshKecamatan(kodeKk, resolution.getCode(),
+                            resolution.getTolerance(), resolution.getDecimalDigits());
+                    simplifiedGeometryRepository.refreshDesa(kodeKk, resolution.getCode(),
+                            resolution.getTolerance(), resolution.getDecimalDigits());
+                }
+            } catch (Exception e) {
+                failures++;
+                log.error("Error building kabupaten boundary for kode: {}", kodeKk, e);
+            }
+        }
+
+        List<String> provinsiKodes = boundaryRepository.findSourceProvinsiKodes();
+        for (String kodeProv : provinsiKodes) {
+            try {
+                boundaryRepository.refreshProvinsi(kodeProv);
+            } catch (Exception e) {
+                failures++;
+                log.error("Error building provinsi boundary for kode: {}", kodeProv, e);
+            }
+        }
+
+        for (GeometryResolution resolution : GeometryResolution.values()) {
+            if (!resolution.isSimplified()) continue;
+            try {
+                simplifiedGeometryRepository.refreshProvinsiKabupaten(resolution.getCode(),
+                        resolution.getTolerance(), resolution.getDecimalDigits());
+            } catch (Exception e) {
+                failures++;
+                log.error("Error simplifying provinsi/kabupaten boundaries at resolution: {}", resolution, e);
+            }
+        }
+
+        // Cached payloads were serialized from the previous store contents
+        boundaryPayloadService.invalidateAll();
+
+        lastFailures = failures;
+        lastFinishedAt = Instant.now();
+        log.info("Boundary store rebuilt: {} kabupaten, {} provinsi, {} failures in {} s",
+                kabupatenKodes.size(), provinsiKodes.size(), failures,
+                Duration.between(lastStartedAt, lastFinishedAt).toSeconds());
+        eventPublisher.publishEvent(new BoundaryStoreRefreshedEvent(lastFinishedAt, failures));
+    }
+}
@@ -0,0 +1,57 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.LoadReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.20
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkLoadRunner implements ApplicationRunner {
+
+    // Fresh database: java -jar app.jar --spring.profiles.active=load --load=/data/wilayah
+    // Reload:         java -jar app.jar --spring.main.web-application-type=none --load=/data/wilayah --load-truncate
+    // /data/wilayah/<table>/<region>.csv(.gz) or .geojson/.ndjson(.gz), see BulkLoadService.TABLES
+    private final BulkLoadService bulkLoadService;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> values = args.getOptionValues("load");
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+
+        Path source = Path.of(values.getFirst());
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("--load must point to a directory: " + source);
+        }
+        List<LoadReport> reports = bulkLoadService.load(source, args.containsOption("load-truncate"));
+        reports.forEach(report -> log.info("{}: {} rows from {} file(s), copy {} ms ({} rows/s), indexes {} ms",
+                report.getTable(), report.getRows(), report.getFiles(), report.getCopyMillis(),
+                report.getRowsPerSecond(), report.getIndexMillis()));
+
+        // A one-shot load, not a server start
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
@@ -0,0 +1,353 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.LoadReport;
+import id.my.hendisantika.postgis.repository.BulkLoadRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.geojson.GeoJsonReader;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkLoadService {
+
+    // Loaded in this order; the source directory holds one sub-directory per table, one file per region inside it
+    public static final List<String> TABLES = List.of(
+            "wilayah_level_1_2", "wilayah_level_3_4", "idn_admbnda_adm3_2023", "all_villages_2023");
+
+    private static final Set<String> WILAYAH_TABLES = Set.of("wilayah_level_1_2", "wilayah_level_3_4");
+    private static final String GEOMETRY_COLUMN = "geom";
+    private static final int FLUSH_BYTES = 256 * 1024;
+
+    private final BulkLoadRepository bulkLoadRepository;
+    private final WilayahService wilayahService;
+    private final ObjectMapper objectMapper;
+    private final WilayahProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Copies every table directory found under source. The files of a table are copied in parallel into a staging
+     * table and only moved into the table, in one transaction, once all of them succeeded.
+     */
+    public List<LoadReport> load(Path source, boolean truncate) throws IOException {
+        List<String> tables = TABLES.stream().filter(table -> Files.isDirectory(source.resolve(table))).toList();
+        if (!truncate) {
+            // Appending to rows the Flyway data migrations (or an earlier load) inserted would duplicate every kode
+            List<String> filled = tables.stream().filter(bulkLoadRepository::hasRows).toList();
+            if (!filled.isEmpty()) {
+                throw new IllegalStateException("Tables " + filled + " already hold rows, pass --load-truncate to replace them");
+            }
+        }
+
+        List<LoadReport> reports = new ArrayList<>();
+        for (String table : tables) {
+            reports.add(loadTable(table, source.resolve(table), truncate));
+        }
+        if (reports.stream().anyMatch(report -> WILAYAH_TABLES.contains(report.getTable()))) {
+            wilayahService.refreshHierarchy();
+        }
+        return reports;
+    }
+
+    private LoadReport loadTable(String table, Path directory, boolean truncate) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(BulkLoadService::isSupported).sorted().toList();
+        }
+        List<String> columns = bulkLoadRepository.findColumns(table);
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("Table " + table + " does not exist, run the Flyway schema migrations first");
+        }
+
+        String staging = bulkLoadRepository.createStagingTable(table);
+        long start = System.nanoTime();
+        long rows = 0;
+        long copyMillis;
+        try {
+            try (ExecutorService executor = Executors.newFixedThreadPool(properties.getLoader().getParallelism(),
+                    Thread.ofVirtual().name("bulk-load-", 0).factory())) {
+                List<Future<Long>> results = new ArrayList<>();
+                for (Path file : files) {
+                    results.add(executor.submit(() -> loadFile(staging, columns, file)));
+                }
+                for (Future<Long> result : results) {
+                    rows += result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bulk load of " + table + " interrupted, " + table + " left unchanged", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Bulk load of " + table + " failed, " + table + " left unchanged", e.getCause());
+            }
+            copyMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // All or nothing: a failed swap rolls back the truncate and the index drops with it. GiST maintenance
+            // per row is what makes a load slow, so the indexes are rebuilt once after the insert.
+            List<BulkLoadRepository.IndexDefinition> indexes = bulkLoadRepository.findGistIndexes(table);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                indexes.forEach(bulkLoadRepository::dropIndex);
+                bulkLoadRepository.replaceFrom(staging, table, truncate);
+                indexes.forEach(bulkLoadRepository::createIndex);
+            });
+        } catch (RuntimeException e) {
+            dropStaging(staging, e);
+            throw e;
+        }
+        bulkLoadRepository.dropTable(staging);
+        bulkLoadRepository.analyze(table);
+
+        long indexMillis = (System.nanoTime() - start) / 1_000_000 - copyMillis;
+        LoadReport report = new LoadReport(table, files.size(), rows, copyMillis, indexMillis);
+        log.info("Loaded {} rows into {} from {} file(s) in {} ms ({} rows/s), swap, indexes and ANALYZE {} ms",
+                rows, table, files.size(), copyMillis, report.getRowsPerSecond(), indexMillis);
+        return report;
+    }
+
+    // Cleanup after a failed load must not replace the failure itself
+    private void dropStaging(String staging, RuntimeException cause) {
+        try {
+            bulkLoadRepository.dropTable(staging);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private long loadFile(String table, List<String> columns, Path file) throws IOException, SQLException {
+        long start = System.nanoTime();
+        String name = baseName(file);
+        long rows;
+        try (InputStream in = open(file)) {
+            rows = name.endsWith(".csv")
+                    ? copyCsv(table, columns, in)
+                    : copyGeoJson(table, columns, in, name.endsWith(".ndjson"));
+        }
+        long elapsedMillis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        log.info("Copied {} rows into {} from {} in {} ms ({} rows/s)", rows, table, file.getFileName(),
+                elapsedMillis, rows * 1000 / elapsedMillis);
+        return rows;
+    }
+
+    /**
+     * CSV with a header row naming the columns. Geometries are hex EWKB, the text form PostGIS writes with
+     * COPY ... TO, so rows go to the server untouched.
+     */
+    private long copyCsv(String table, List<String> columns, InputStream in) throws IOException, SQLException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        List<String> header = Arrays.stream(readLine(buffered).split(","))
+                .map(column -> column.trim().replace("\"", "")).toList();
+        for (String column : header) {
+            if (!columns.contains(column)) {
+                throw new IllegalArgumentException("Unknown column " + column + " for " + table);
+            }
+        }
+        return bulkLoadRepository.copyIn(BulkLoadRepository.copySql(table, header), buffered);
+    }
+
+    /**
+     * GeoJSON FeatureCollection or newline-delimited features. Properties named like a column fill it,
+     * the geometry goes to geom as hex EWKB. Columns are taken from the first feature.
+     */
+    private long copyGeoJson(String table, List<String> columns, InputStream in, boolean newlineDelimited)
+            throws IOException, SQLException {
+        try (FeatureSource features = newlineDelimited ? ndjsonFeatures(in) : collectionFeatures(in)) {
+            JsonNode first = features.next();
+            if (first == null) {
+                return 0;
+            }
+            List<String> properties = new ArrayList<>();
+            for (Map.Entry<String, JsonNode> property : first.path("properties").properties()) {
+                if (columns.contains(property.getKey()) && !GEOMETRY_COLUMN.equals(property.getKey())) {
+                    properties.add(property.getKey());
+                }
+            }
+            List<String> copyColumns = new ArrayList<>(properties);
+            copyColumns.add(GEOMETRY_COLUMN);
+
+            GeoJsonReader geoJsonReader = new GeoJsonReader(new GeometryFactory(new PrecisionModel(), 4326));
+            WKBWriter wkbWriter = new WKBWriter(2, true);
+            return bulkLoadRepository.copyIn(BulkLoadRepository.copySql(table, copyColumns), copyIn -> {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(FLUSH_BYTES + 64 * 1024);
+                StringBuilder row = new StringBuilder(1024);
+                for (JsonNode feature = first; feature != null; feature = features.next()) {
+                    row.setLength(0);
+                    JsonNode values = feature.path("properties");
+                    for (String property : properties) {
+                        appendCsv(row, values.get(property));
+                        row.append(',');
+                    }
+                    row.append(geometryHex(table, feature.get("geometry"), geoJsonReader, wkbWriter)).append('\n');
+                    buffer.writeBytes(row.toString().getBytes(StandardCharsets.UTF_8));
+                    if (buffer.size() >= FLUSH_BYTES) {
+                        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                        buffer.reset();
+                    }
+                }
+                copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+            });
+        }
+    }
+
+    // Features one at a time, null once the source is exhausted
+    private interface FeatureSource extends AutoCloseable {
+        JsonNode next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private FeatureSource ndjsonFeatures(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        return new FeatureSource() {
+            @Override
+            public JsonNode next() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        return objectMapper.readTree(line);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    // Streams the features array so a FeatureCollection is never held in memory as a whole
+    private FeatureSource collectionFeatures(InputStream in) {
+        JsonParser parser = objectMapper.createParser(in);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
+            throw new IllegalArgumentException("Expected a GeoJSON FeatureCollection");
+        }
+        return new FeatureSource() {
+            private boolean inFeatures;
+
+            @Override
+            public JsonNode next() {
+                while (!inFeatures) {
+                    if (parser.nextToken() != JsonToken.PROPERTY_NAME) {
+                        return null;
+                    }
+                    String property = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY && "features".equals(property)) {
+                        inFeatures = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    return objectMapper.readValue(parser, JsonNode.class);
+                }
+                // End of the features array; later members are of no interest
+                inFeatures = false;
+                return null;
+            }
+
+            @Override
+            public void close() {
+                parser.close();
+            }
+        };
+    }
+
+    private static String geometryHex(String table, JsonNode geometry, GeoJsonReader geoJsonReader,
+                                      WKBWriter wkbWriter) {
+        if (geometry == null || geometry.isNull()) {
+            return "";
+        }
+        try {
+            Geometry parsed = geoJsonReader.read(geometry.toString());
+            parsed.setSRID(4326);
+            return WKBWriter.toHex(wkbWriter.write(parsed));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Unreadable GeoJSON geometry in " + table, e);
+        }
+    }
+
+    private static void appendCsv(StringBuilder row, JsonNode value) {
+        if (value == null || value.isNull()) {
+            return;
+        }
+        String text = value.isContainer() ? value.toString() : value.asString();
+        if (text.isEmpty() || text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            // Quoted, so an empty string stays distinct from NULL
+            row.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            row.append(text);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private static String baseName(Path file) {
+        return file.getFileName().toString().replaceFirst("\\.gz$", "");
+    }
+
+    private static boolean isSupported(Path file) {
+        String name = baseName(file);
+        return Files.isRegularFile(file)
+                && (name.endsWith(".csv") || name.endsWith(".geojson") || name.endsWith(".ndjson"));
+    }
+}
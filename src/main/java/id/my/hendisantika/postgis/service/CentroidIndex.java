@@ -0,0 +1,236 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.40
+ * To change this template use File | Settings | File Templates.
+ */
+public final class CentroidIndex {
+
+    private static final AdminLevel[] LEVELS = AdminLevel.values();
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    // One k-d tree per level over the lat/lng of the tree nodes. Points are unit vectors on the sphere, where the
+    // straight-line (chord) distance grows with the great-circle distance, so plain Euclidean pruning is exact.
+    private final KdTree[] trees;
+
+    private CentroidIndex(KdTree[] trees) {
+        this.trees = trees;
+    }
+
+    public record Neighbor(WilayahNode node, double distanceMeters) {
+    }
+
+    public static CentroidIndex build(WilayahTree tree) {
+        KdTree[] trees = new KdTree[LEVELS.length];
+        for (AdminLevel level : LEVELS) {
+            trees[level.ordinal()] = KdTree.build(tree.all(level));
+        }
+        return new CentroidIndex(trees);
+    }
+
+    public int size(AdminLevel level) {
+        return trees[level.ordinal()].nodes.length;
+    }
+
+    /**
+     * The k nodes of the level closest to the point, nearest first, with great-circle distances on a spherical earth.
+     */
+    public List<Neighbor> nearest(AdminLevel level, double lat, double lng, int k) {
+        KdTree tree = trees[level.ordinal()];
+        if (k <= 0 || tree.nodes.length == 0) {
+            return List.of();
+        }
+        double[] target = toUnitVector(lat, lng);
+        Candidates candidates = new Candidates(Math.min(k, tree.nodes.length));
+        tree.search(0, tree.nodes.length, 0, target, candidates);
+
+        List<Neighbor> result = new ArrayList<>(candidates.size);
+        for (int i : candidates.sortedPositions()) {
+            double chord = Math.sqrt(tree.squaredDistance(i, target));
+            double meters = 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, chord / 2));
+            result.add(new Neighbor(tree.nodes[i], meters));
+        }
+        return result;
+    }
+
+    private static double[] toUnitVector(double lat, double lng) {
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lng);
+        double cosPhi = Math.cos(phi);
+        return new double[]{cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+    }
+
+    private static final class KdTree {
+        // Implicit tree: the median of [from, to) is the node, split on axis depth % 3
+        private final WilayahNode[] nodes;
+        private final double[] coordinates;
+
+        private KdTree(WilayahNode[] nodes, double[] coordinates) {
+            this.nodes = nodes;
+            this.coordinates = coordinates;
+        }
+
+        static KdTree build(List<WilayahNode> levelNodes) {
+            WilayahNode[] nodes = levelNodes.stream()
+                    .filter(node -> node.getLat() != null && node.getLng() != null)
+                    .toArray(WilayahNode[]::new);
+            double[] coordinates = new double[nodes.length * 3];
+            for (int i = 0; i < nodes.length; i++) {
+                double[] vector = toUnitVector(nodes[i].getLat(), nodes[i].getLng());
+                System.arraycopy(vector, 0, coordinates, i * 3, 3);
+            }
+            KdTree tree = new KdTree(nodes, coordinates);
+            tree.partition(0, nodes.length, 0);
+            return tree;
+        }
+
+        private void partition(int from, int to, int depth) {
+            if (to - from <= 1) return;
+            int median = (from + to) >>> 1;
+            select(from, to - 1, median, depth % 3);
+            partition(from, median, depth + 1);
+            partition(median + 1, to, depth + 1);
+        }
+
+        // Quickselect: afterwards position k holds the element it would have if [left, right] were sorted on axis
+        private void select(int left, int right, int k, int axis) {
+            while (left < right) {
+                double pivot = coordinates[((left + right) >>> 1) * 3 + axis];
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (coordinates[i * 3 + axis] < pivot) i++;
+                    while (coordinates[j * 3 + axis] > pivot) j--;
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            WilayahNode node = nodes[a];
+            nodes[a] = nodes[b];
+            nodes[b] = node;
+            for (int axis = 0; axis < 3; axis++) {
+                double value = coordinates[a * 3 + axis];
+                coordinates[a * 3 + axis] = coordinates[b * 3 + axis];
+                coordinates[b * 3 + axis] = value;
+            }
+        }
+
+        void search(int from, int to, int depth, double[] target, Candidates candidates) {
+            if (from >= to) return;
+            int median = (from + to) >>> 1;
+            candidates.offer(median, squaredDistance(median, target));
+
+            int axis = depth % 3;
+            double delta = target[axis] - coordinates[median * 3 + axis];
+            boolean left = delta < 0;
+            search(left ? from : median + 1, left ? median : to, depth + 1, target, candidates);
+            // The far side can only hold a closer point when the splitting plane is closer than the current worst
+            if (!candidates.isFull() || delta * delta < candidates.worstDistance()) {
+                search(left ? median + 1 : from, left ? to : median, depth + 1, target, candidates);
+            }
+        }
+
+        double squaredDistance(int position, double[] target) {
+            double dx = coordinates[position * 3] - target[0];
+            double dy = coordinates[position * 3 + 1] - target[1];
+            double dz = coordinates[position * 3 + 2] - target[2];
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    // Bounded max-heap of positions keyed by squared chord distance
+    private static final class Candidates {
+        private final int[] positions;
+        private final double[] distances;
+        private int size;
+
+        Candidates(int capacity) {
+            positions = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == positions.length;
+        }
+
+        double worstDistance() {
+            return distances[0];
+        }
+
+        void offer(int position, double distance) {
+            if (!isFull()) {
+                positions[size] = position;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                positions[0] = position;
+                distances[0] = distance;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedPositions() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) sorted[i] = positions[order[i]];
+            return sorted;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) return;
+                exchange(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) largest = left;
+                if (right < size && distances[right] > distances[largest]) largest = right;
+                if (largest == i) return;
+                exchange(i, largest);
+                i = largest;
+            }
+        }
+
+        private void exchange(int a, int b) {
+            int position = positions[a];
+            positions[a] = positions[b];
+            positions[b] = position;
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+        }
+    }
+}
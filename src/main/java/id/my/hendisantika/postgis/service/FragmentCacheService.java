@@ -0,0 +1,102 @@
+package id.my.hendisantika.postgis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.CachedPayload;
+import id.my.hendisantika.postgis.repository.SchemaVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.50
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+public class FragmentCacheService {
+
+    private final ITemplateEngine templateEngine;
+    private final Cache<String, CachedPayload> fragmentCache;
+    private final SchemaVersionRepository schemaVersionRepository;
+    private final long schemaCheckIntervalNanos;
+
+    private volatile String schemaVersion;
+    private volatile long schemaCheckedAt;
+
+    public FragmentCacheService(ITemplateEngine templateEngine, Cache<String, CachedPayload> fragmentCache,
+                                SchemaVersionRepository schemaVersionRepository, WilayahProperties properties) {
+        this.templateEngine = templateEngine;
+        this.fragmentCache = fragmentCache;
+        this.schemaVersionRepository = schemaVersionRepository;
+        this.schemaCheckIntervalNanos = properties.getFragmentCache().getSchemaCheckInterval().toNanos();
+    }
+
+    /**
+     * Rendered fragment for template, fragment and key (usually a kode), rendered from the model only on a miss.
+     * Entries belong to the Flyway schema version they were rendered under and are dropped once it moves on.
+     */
+    public CachedPayload render(String template, String fragment, String key, Callable<Map<String, Object>> model) {
+        String cacheKey = currentSchemaVersion() + ":" + template + "::" + fragment + ":" + key;
+        return fragmentCache.get(cacheKey, k -> {
+            Context context = new Context(Locale.ROOT, load(model, k));
+            byte[] html = templateEngine.process(template, Set.of(fragment), context).getBytes(StandardCharsets.UTF_8);
+            return CachedPayload.of(html, BoundaryPayloadService.strongEtag(html));
+        });
+    }
+
+    // The detail panel embeds boundaries, so a rebuilt boundary store makes rendered panels stale
+    @EventListener(BoundaryStoreRefreshedEvent.class)
+    public void invalidateAll() {
+        fragmentCache.invalidateAll();
+    }
+
+    // Looked up at most once per wilayah.fragment-cache.schema-check-interval, which also catches external migrations
+    private String currentSchemaVersion() {
+        long now = System.nanoTime();
+        String version = schemaVersion;
+        if (version != null && now - schemaCheckedAt < schemaCheckIntervalNanos) {
+            return version;
+        }
+        synchronized (this) {
+            if (schemaVersion == null || now - schemaCheckedAt >= schemaCheckIntervalNanos) {
+                String current = schemaVersionRepository.findCurrentVersion();
+                if (schemaVersion != null && !schemaVersion.equals(current)) {
+                    log.info("Flyway schema version changed from {} to {}, dropping rendered fragments",
+                            schemaVersion, current);
+                    fragmentCache.invalidateAll();
+                }
+                schemaVersion = current;
+                schemaCheckedAt = now;
+            }
+            return schemaVersion;
+        }
+    }
+
+    private static Map<String, Object> load(Callable<Map<String, Object>> model, String cacheKey) {
+        try {
+            return model.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the model of " + cacheKey, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot load the model of " + cacheKey, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package id.my.hendisantika.postgis.service;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 17.00
+ * To change this template use File | Settings | File Templates.
+ */
+public class GeoJsonFeatureWriter implements AutoCloseable {
+
+    // Writes features one at a time, either inside a FeatureCollection or as newline-delimited GeoJSON.
+    // Geometries arrive as ST_AsGeoJSON text and are copied into the output verbatim.
+    // The collection is only closed by finish(): output of a failed query stays unterminated, so a client or a
+    // file reader sees the failure instead of a shorter but valid FeatureCollection. The stream belongs to the
+    // caller and is only flushed, so e.g. a gzip wrapper is not given its trailer after a failure.
+    private final JsonGenerator generator;
+    private final boolean newlineDelimited;
+    private long count;
+
+    public GeoJsonFeatureWriter(ObjectMapper objectMapper, OutputStream out, boolean newlineDelimited) {
+        this.generator = objectMapper.writer().withRootValueSeparator("\n")
+                .without(StreamWriteFeature.AUTO_CLOSE_CONTENT, StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(out);
+        this.newlineDelimited = newlineDelimited;
+        if (!newlineDelimited) {
+            generator.writeStartObject();
+            generator.writeStringProperty("type", "FeatureCollection");
+            generator.writeName("features");
+            generator.writeStartArray();
+        }
+    }
+
+    public void writeFeature(String kode, String nama, String level, String geoJsonGeometry) {
+        generator.writeStartObject();
+        generator.writeStringProperty("type", "Feature");
+        generator.writeStringProperty("id", kode);
+        generator.writeName("properties");
+        generator.writeStartObject();
+        generator.writeStringProperty("kode", kode);
+        generator.writeStringProperty("nama", nama);
+        generator.writeStringProperty("level", level);
+        generator.writeEndObject();
+        generator.writeName("geometry");
+        if (geoJsonGeometry != null) {
+            generator.writeRawValue(geoJsonGeometry);
+        } else {
+            generator.writeNull();
+        }
+        generator.writeEndObject();
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void flush() {
+        generator.flush();
+    }
+
+    /**
+     * Ends the output after the last feature. Without it close() leaves the document open.
+     */
+    public void finish() {
+        if (newlineDelimited) {
+            generator.writeRaw('\n');
+        } else {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public void close() {
+        generator.close();
+    }
+}
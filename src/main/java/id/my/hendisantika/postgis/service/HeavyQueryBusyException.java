@@ -0,0 +1,18 @@
+package id.my.hendisantika.postgis.service;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.40
+ * To change this template use File | Settings | File Templates.
+ */
+public class HeavyQueryBusyException extends RuntimeException {
+
+    public HeavyQueryBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,87 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.NearbyWilayah;
+import id.my.hendisantika.postgis.dto.NearestResult;
+import id.my.hendisantika.postgis.dto.NearestRow;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.repository.SubDistrictRepository;
+import id.my.hendisantika.postgis.repository.VillageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.00
+ * To change this template use File | Settings | File Templates.
+ */
+@Service
+@RequiredArgsConstructor
+public class NearestService {
+
+    public static final String MODE_CENTROID = "centroid";
+    public static final String MODE_BOUNDARY = "boundary";
+    public static final String SOURCE_DATABASE = "database";
+    public static final String SOURCE_MEMORY = "memory";
+
+    private final SubDistrictRepository subDistrictRepository;
+    private final VillageRepository villageRepository;
+    private final WilayahTreeService wilayahTreeService;
+    private final QueryMetrics queryMetrics;
+    private final WilayahProperties properties;
+
+    /**
+     * k nearest kecamatan or desa from PostGIS: KNN candidates from the GiST index, re-ranked by geodesic distance
+     * to the centroid or, with boundary, to the polygon itself (0 inside it).
+     */
+    public NearestResult fromDatabase(AdminLevel level, double lat, double lng, int k, boolean boundary) {
+        long start = System.nanoTime();
+        WilayahProperties.Nearest nearest = properties.getNearest();
+        int candidates = Math.max(k * nearest.getCandidateFactor(), nearest.getMinCandidates());
+        List<NearestRow> rows = queryMetrics.observe("nearest", level, null, () -> level == AdminLevel.DESA
+                ? villageRepository.findNearest(lat, lng, boundary, candidates, k)
+                : subDistrictRepository.findNearest(lat, lng, boundary, candidates, k));
+        List<NearbyWilayah> results = rows.stream()
+                .map(row -> new NearbyWilayah(row.getKode(), row.getNama(), level.getLabel(), row.getLat(), row.getLng(),
+                        row.getDistance()))
+                .toList();
+        return result(level, lat, lng, boundary ? MODE_BOUNDARY : MODE_CENTROID, SOURCE_DATABASE, results, start);
+    }
+
+    /**
+     * k nearest by the lat/lng of the wilayah_level_3_4 rows from the in-memory k-d tree, without a database
+     * round trip. Distances are great-circle on a spherical earth. Empty until the tree has been built.
+     */
+    public Optional<NearestResult> fromMemory(AdminLevel level, double lat, double lng, int k) {
+        long start = System.nanoTime();
+        return wilayahTreeService.currentCentroidIndex().map(index -> {
+            List<NearbyWilayah> results = index.nearest(level, lat, lng, k).stream()
+                    .map(neighbor -> new NearbyWilayah(neighbor.node().getKode(), neighbor.node().getNama(),
+                            level.getLabel(), neighbor.node().getLat(), neighbor.node().getLng(),
+                            neighbor.distanceMeters()))
+                    .toList();
+            return result(level, lat, lng, MODE_CENTROID, SOURCE_MEMORY, results, start);
+        });
+    }
+
+    private static NearestResult result(AdminLevel level, double lat, double lng, String mode, String source,
+                                        List<NearbyWilayah> results, long start) {
+        return NearestResult.builder()
+                .lat(lat)
+                .lng(lng)
+                .level(level.getSlug())
+                .mode(mode)
+                .source(source)
+                .results(results)
+                .elapsedMicros((System.nanoTime() - start) / 1_000)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.30
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryMetrics {
+
+    static final String QUERY_OBSERVATION = "wilayah.query";
+    static final String GEOMETRY_BYTES = "wilayah.geometry.bytes";
+    static final String GEOMETRY_VERTICES = "wilayah.geometry.vertices";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final WilayahProperties properties;
+
+    /**
+     * Runs one database query inside an observation: a timer tagged by query and level, and a span carrying the kode
+     * when tracing is on. Queries slower than wilayah.metrics.slow-query-threshold are logged with their kode.
+     */
+    public <T> T observe(String query, AdminLevel level, String kode, Supplier<T> supplier) {
+        String levelTag = level != null ? level.getSlug() : "unknown";
+        long start = System.nanoTime();
+        try {
+            // kode is high cardinality: it goes to traces, never to metric tags
+            return Observation.createNotStarted(QUERY_OBSERVATION, observationRegistry)
+                    .lowCardinalityKeyValue("query", query)
+                    .lowCardinalityKeyValue("level", levelTag)
+                    .highCardinalityKeyValue("kode", kode != null ? kode : "")
+                    .observe(supplier);
+        } finally {
+            WilayahProperties.Metrics metrics = properties.getMetrics();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (metrics.isSlowQueryLog() && elapsedMillis >= metrics.getSlowQueryThreshold().toMillis()) {
+                log.warn("Slow {} query for {} kode {}: {} ms", query, levelTag, kode, elapsedMillis);
+            }
+        }
+    }
+
+    public void observe(String query, AdminLevel level, String kode, Runnable runnable) {
+        observe(query, level, kode, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the size of a GeoJSON geometry about to be served.
+     */
+    public void recordGeometry(AdminLevel level, String source, String geoJson) {
+        if (geoJson == null) return;
+        String levelTag = level != null ? level.getSlug() : "unknown";
+        DistributionSummary.builder(GEOMETRY_BYTES)
+                .baseUnit("bytes")
+                .description("Size of served GeoJSON geometries")
+                .tags("level", levelTag, "source", source)
+                .register(meterRegistry)
+                .record(geoJson.length());
+        DistributionSummary.builder(GEOMETRY_VERTICES)
+                .description("Vertex count of served geometries")
+                .tags("level", levelTag, "source", source)
+                .register(meterRegistry)
+                .record(countVertices(geoJson));
+    }
+
+    // Every GeoJSON position opens with '[' directly followed by a number
+    static int countVertices(String geoJson) {
+        int vertices = 0;
+        for (int i = 0, last = geoJson.length() - 1; i < last; i++) {
+            if (geoJson.charAt(i) == '[') {
+                char next = geoJson.charAt(i + 1);
+                if (next == '-' || (next >= '0' && next <= '9')) vertices++;
+            }
+        }
+        return vertices;
+    }
+}
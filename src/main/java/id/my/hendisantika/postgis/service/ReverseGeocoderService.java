@@ -0,0 +1,199 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.GeometryWkb;
+import id.my.hendisantika.postgis.dto.LocateResult;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.repository.SimplifiedGeometryRepository;
+import id.my.hendisantika.postgis.repository.SubDistrictRepository;
+import id.my.hendisantika.postgis.repository.VillageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 15.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReverseGeocoderService {
+
+    // Packed coordinates take 16 bytes per vertex instead of a Coordinate object each
+    private static final GeometryFactory GEOMETRY_FACTORY =
+            new GeometryFactory(new PrecisionModel(), 4326, PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+
+    private final SimplifiedGeometryRepository simplifiedGeometryRepository;
+    private final SubDistrictRepository subDistrictRepository;
+    private final VillageRepository villageRepository;
+    private final WilayahTreeService wilayahTreeService;
+    private final WilayahProperties properties;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskExecutor applicationTaskExecutor;
+
+    private final AtomicReference<Index> index = new AtomicReference<>();
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    private record Entry(String kode, PreparedGeometry geometry) {
+    }
+
+    private record Index(STRtree desa, STRtree kecamatan) {
+    }
+
+    public boolean isReady() {
+        return index.get() != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildInBackground();
+    }
+
+    // Simplified geometries may only exist once the boundary store job has run
+    @EventListener(BoundaryStoreRefreshedEvent.class)
+    public void onBoundaryStoreRefreshed() {
+        rebuildInBackground();
+    }
+
+    public void rebuildInBackground() {
+        if (!properties.getLocate().isEnabled() || !building.compareAndSet(false, true)) {
+            return;
+        }
+        applicationTaskExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Error building reverse geocoding index", e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    public Optional<LocateResult> locate(double lat, double lng) {
+        Index current = index.get();
+        if (current == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(lng, lat));
+
+        String kode = findContaining(current.desa(), point);
+        if (kode == null) {
+            kode = findContaining(current.kecamatan(), point);
+        }
+        if (kode == null) {
+            return Optional.empty();
+        }
+
+        LocateResult.LocateResultBuilder result = LocateResult.builder().lat(lat).lng(lng);
+        for (AdminLevel level : AdminLevel.values()) {
+            if (kode.length() < level.getKodeLength()) break;
+            WilayahNode node = toNode(kode.substring(0, level.getKodeLength()), level);
+            switch (level) {
+                case PROVINSI -> result.provinsi(node);
+                case KABUPATEN -> result.kabupaten(node);
+                case KECAMATAN -> result.kecamatan(node);
+                case DESA -> result.desa(node);
+            }
+        }
+        return Optional.of(result.elapsedMicros((System.nanoTime() - start) / 1_000).build());
+    }
+
+    private String findContaining(STRtree tree, Point point) {
+        for (Object item : tree.query(point.getEnvelopeInternal())) {
+            Entry entry = (Entry) item;
+            if (entry.geometry().covers(point)) {
+                return entry.kode();
+            }
+        }
+        return null;
+    }
+
+    private WilayahNode toNode(String kode, AdminLevel level) {
+        return wilayahTreeService.current()
+                .flatMap(tree -> tree.find(kode))
+                .orElseGet(() -> new WilayahNode(kode, null, null, null, level));
+    }
+
+    private void rebuild() {
+        GeometryResolution resolution = properties.getLocate().getResolution();
+        if (resolution.isSimplified()
+                && simplifiedGeometryRepository.countByLevelAndIdResolution((short) 4, resolution.getCode()) == 0) {
+            log.info("No {} simplified geometries yet, reverse geocoding index waits for the boundary store", resolution);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Runtime runtime = Runtime.getRuntime();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long[] vertices = new long[1];
+        STRtree desa = readOnly.execute(status -> load(resolution.isSimplified()
+                ? simplifiedGeometryRepository.streamWkb((short) 4, resolution.getCode())
+                : villageRepository.streamAllAsWkb(), vertices));
+        STRtree kecamatan = readOnly.execute(status -> load(resolution.isSimplified()
+                ? simplifiedGeometryRepository.streamWkb((short) 3, resolution.getCode())
+                : subDistrictRepository.streamAllAsWkb(), vertices));
+        index.set(new Index(desa, kecamatan));
+
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        log.info("Reverse geocoding index built at {} resolution: {} desa, {} kecamatan, {} vertices, "
+                        + "~{} MB of coordinates, heap delta ~{} MB, in {} ms",
+                resolution, desa.size(), kecamatan.size(), vertices[0],
+                vertices[0] * 16 / (1024 * 1024), (usedAfter - usedBefore) / (1024 * 1024),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private STRtree load(Stream<GeometryWkb> rows, long[] vertices) {
+        STRtree tree = new STRtree();
+        WKBReader reader = new WKBReader(GEOMETRY_FACTORY);
+        try (rows) {
+            rows.forEach(row -> {
+                try {
+                    Geometry geometry = reader.read(row.getWkb());
+                    vertices[0] += geometry.getNumPoints();
+                    tree.insert(geometry.getEnvelopeInternal(),
+                            new Entry(row.getKode(), PreparedGeometryFactory.prepare(geometry)));
+                } catch (ParseException e) {
+                    log.warn("Skipping unreadable geometry for kode: {}", row.getKode());
+                }
+            });
+        }
+        // Building packs the tree; it is read-only afterwards and safe to share between threads
+        tree.build();
+        return tree;
+    }
+}
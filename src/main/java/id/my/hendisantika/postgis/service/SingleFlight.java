@@ -0,0 +1,128 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.35
+ * To change this template use File | Settings | File Templates.
+ */
+@Component
+public class SingleFlight {
+
+    static final String CALLS = "wilayah.singleflight.calls";
+    static final String IN_FLIGHT = "wilayah.singleflight.in.flight";
+    static final String HEAVY_ACTIVE = "wilayah.heavy.queries.active";
+
+    // One future per query and key while it runs; the caller that inserts it computes, later callers wait on it
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore heavyQueries;
+    private final int maxHeavyQueries;
+    private final Duration maxWait;
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(WilayahProperties properties, MeterRegistry meterRegistry) {
+        this.maxHeavyQueries = properties.getSingleFlight().getMaxHeavyQueries();
+        this.maxWait = properties.getSingleFlight().getMaxWait();
+        this.heavyQueries = new Semaphore(maxHeavyQueries, true);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(IN_FLIGHT, inFlight, ConcurrentHashMap::size)
+                .description("Distinct computations currently in flight")
+                .register(meterRegistry);
+        Gauge.builder(HEAVY_ACTIVE, heavyQueries, semaphore -> maxHeavyQueries - semaphore.availablePermits())
+                .description("Heavy spatial queries holding one of the global permits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs computation once for all concurrent callers with the same query and key. Waiting callers give up after
+     * wilayah.single-flight.max-wait; heavy computations additionally need one of max-heavy-queries permits, so
+     * they can never take the whole connection pool. Results are not kept once the computation has finished.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String query, String key, boolean heavy, Supplier<T> computation) {
+        String flightKey = query + ":" + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            return (T) await(query, key, existing);
+        }
+
+        count(query, "leader");
+        try {
+            T result = heavy ? withPermit(query, key, computation) : computation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object await(String query, String key, CompletableFuture<Object> flight) {
+        try {
+            Object result = flight.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            count(query, "shared");
+            return result;
+        } catch (TimeoutException e) {
+            count(query, "timeout");
+            throw new HeavyQueryBusyException(query + " for " + key + " still running after " + maxWait.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HeavyQueryBusyException("Interrupted while waiting for " + query + " for " + key);
+        } catch (ExecutionException e) {
+            // The leader failed: every waiter sees the same failure instead of retrying the query
+            count(query, "shared");
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> T withPermit(String query, String key, Supplier<T> computation) {
+        try {
+            if (!heavyQueries.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                count(query, "rejected");
+                throw new HeavyQueryBusyException(maxHeavyQueries + " heavy queries running, " + query + " for " + key
+                        + " not started within " + maxWait.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HeavyQueryBusyException("Interrupted while waiting to run " + query + " for " + key);
+        }
+        try {
+            return computation.get();
+        } finally {
+            heavyQueries.release();
+        }
+    }
+
+    // outcome: leader ran the computation, shared got its result, timeout/rejected gave up waiting
+    private void count(String query, String outcome) {
+        Counter.builder(CALLS)
+                .description("Coalesced computations by outcome")
+                .tags("query", query, "outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,103 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.30
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupTimer {
+
+    static final String FIRST_REQUEST = "application.first.request.time";
+
+    private final MeterRegistry meterRegistry;
+    private final WilayahProperties properties;
+    private final Environment environment;
+    private final ConfigurableApplicationContext applicationContext;
+    private final AtomicBoolean firstRequest = new AtomicBoolean();
+
+    // Time to first request: JVM start until the first request has been handled, whoever sent it
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (!firstRequest.compareAndSet(false, true)) {
+            return;
+        }
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        TimeGauge.builder(FIRST_REQUEST, () -> uptimeMillis, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start until the first handled request")
+                .register(meterRegistry);
+        log.info("First request {} handled {} ms after JVM start", event.getRequestUrl(), uptimeMillis);
+    }
+
+    /**
+     * Build-time measurement (see the startup Maven profile): sends one request to the running server, reports the
+     * times since JVM start and exits. Checked at runtime, not with a condition, so it survives AOT processing.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void probe() throws IOException, InterruptedException {
+        WilayahProperties.Startup startup = properties.getStartup();
+        if (!startup.isProbe()) {
+            return;
+        }
+
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        String port = environment.getProperty("local.server.port", environment.getProperty("server.port", "8080"));
+        int status;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + startup.getProbePath()))
+                    .GET().build();
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+        long firstRequestMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("Startup probe {}: ready after {} ms, first request ({} {}) answered after {} ms",
+                startup.getProbeLabel(), readyMillis, startup.getProbePath(), status, firstRequestMillis);
+
+        if (startup.getReport() != null) {
+            Path report = Path.of(startup.getReport());
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            Files.writeString(report, startup.getProbeLabel() + ".ready-ms=" + readyMillis + "\n"
+                            + startup.getProbeLabel() + ".first-request-ms=" + firstRequestMillis + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        // A measurement run, not a server start; a failed request fails the build
+        int exitCode = status >= 200 && status < 300 ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
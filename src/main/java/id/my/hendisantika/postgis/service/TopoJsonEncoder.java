@@ -0,0 +1,131 @@
+package id.my.hendisantika.postgis.service;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.00
+ * To change this template use File | Settings | File Templates.
+ */
+final class TopoJsonEncoder {
+
+    static final String OBJECT_NAME = "wilayah";
+
+    private TopoJsonEncoder() {
+    }
+
+    /**
+     * Polygon or MultiPolygon ST_AsGeoJSON text as builder input; other geometry types carry no area and are skipped.
+     */
+    static TopologyBuilder.Feature parse(ObjectMapper objectMapper, String kode, String nama, String geoJson) {
+        List<List<double[][]>> polygons = new ArrayList<>();
+        if (geoJson != null) {
+            JsonNode geometry = objectMapper.readTree(geoJson);
+            JsonNode coordinates = geometry.path("coordinates");
+            switch (geometry.path("type").asString()) {
+                case "Polygon" -> polygons.add(rings(coordinates));
+                case "MultiPolygon" -> coordinates.forEach(polygon -> polygons.add(rings(polygon)));
+                default -> {
+                }
+            }
+        }
+        return new TopologyBuilder.Feature(kode, nama, polygons);
+    }
+
+    private static List<double[][]> rings(JsonNode polygon) {
+        List<double[][]> rings = new ArrayList<>(polygon.size());
+        for (JsonNode ring : polygon) {
+            double[][] points = new double[ring.size()][];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new double[]{ring.get(i).get(0).asDouble(), ring.get(i).get(1).asDouble()};
+            }
+            rings.add(points);
+        }
+        return rings;
+    }
+
+    /**
+     * One Topology with a GeometryCollection "wilayah" of MultiPolygons, ids and properties as in the GeoJSON
+     * FeatureCollection responses.
+     */
+    static void write(ObjectMapper objectMapper, TopologyBuilder.Topology topology, String level, OutputStream out) {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringProperty("type", "Topology");
+            generator.writeName("bbox");
+            generator.writeArray(topology.bbox(), 0, 4);
+            generator.writeName("transform");
+            generator.writeStartObject();
+            generator.writeName("scale");
+            generator.writeArray(topology.scale(), 0, 2);
+            generator.writeName("translate");
+            generator.writeArray(topology.translate(), 0, 2);
+            generator.writeEndObject();
+
+            generator.writeName("objects");
+            generator.writeStartObject();
+            generator.writeName(OBJECT_NAME);
+            generator.writeStartObject();
+            generator.writeStringProperty("type", "GeometryCollection");
+            generator.writeName("geometries");
+            generator.writeStartArray();
+            for (TopologyBuilder.EncodedFeature feature : topology.features()) {
+                generator.writeStartObject();
+                // A feature whose rings all collapsed on the grid keeps its id with a null geometry
+                generator.writeName("type");
+                if (feature.polygons().isEmpty()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString("MultiPolygon");
+                }
+                generator.writeStringProperty("id", feature.kode());
+                generator.writeName("properties");
+                generator.writeStartObject();
+                generator.writeStringProperty("kode", feature.kode());
+                generator.writeStringProperty("nama", feature.nama());
+                generator.writeStringProperty("level", level);
+                generator.writeEndObject();
+                if (!feature.polygons().isEmpty()) {
+                    generator.writeName("arcs");
+                    generator.writeStartArray();
+                    for (List<int[]> polygon : feature.polygons()) {
+                        generator.writeStartArray();
+                        for (int[] ring : polygon) {
+                            generator.writeArray(ring, 0, ring.length);
+                        }
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+
+            // Arcs as [[x0, y0], [dx, dy], ...] in grid units
+            generator.writeName("arcs");
+            generator.writeStartArray();
+            for (int[] arc : topology.arcs()) {
+                generator.writeStartArray();
+                for (int i = 0; i < arc.length; i += 2) {
+                    generator.writeArray(arc, i, 2);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package id.my.hendisantika.postgis.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 20.55
+ * To change this template use File | Settings | File Templates.
+ */
+public final class TopologyBuilder {
+
+    /**
+     * One feature: polygons of rings, each ring as [x, y] pairs with the first point repeated at the end.
+     */
+    public record Feature(String kode, String nama, List<List<double[][]>> polygons) {
+    }
+
+    /**
+     * Quantized topology: arcs delta-encoded as x0, y0, dx1, dy1, ... and every feature's rings as arc indexes,
+     * ~i meaning arc i reversed, as in the TopoJSON specification.
+     */
+    public record Topology(double[] scale, double[] translate, double[] bbox, List<int[]> arcs,
+                           List<EncodedFeature> features) {
+    }
+
+    public record EncodedFeature(String kode, String nama, List<List<int[]>> polygons) {
+    }
+
+    private final int quantization;
+    private final List<Feature> features = new ArrayList<>();
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    public TopologyBuilder(int quantization) {
+        this.quantization = quantization;
+    }
+
+    public void add(Feature feature) {
+        for (List<double[][]> polygon : feature.polygons()) {
+            for (double[][] ring : polygon) {
+                for (double[] point : ring) {
+                    minX = Math.min(minX, point[0]);
+                    minY = Math.min(minY, point[1]);
+                    maxX = Math.max(maxX, point[0]);
+                    maxY = Math.max(maxY, point[1]);
+                }
+            }
+        }
+        features.add(feature);
+    }
+
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * Quantizes every ring to the grid, cuts rings into arcs at junctions (points whose neighbours differ between
+     * the rings passing through them), keeps each shared arc once and simplifies it with Douglas-Peucker. Arc end
+     * points are never removed, so neighbours still meet exactly after simplification.
+     */
+    public Topology build(double tolerance) {
+        double kx = maxX > minX ? (maxX - minX) / (quantization - 1) : 1;
+        double ky = maxY > minY ? (maxY - minY) / (quantization - 1) : 1;
+
+        List<List<List<long[]>>> quantized = new ArrayList<>(features.size());
+        for (Feature feature : features) {
+            List<List<long[]>> polygons = new ArrayList<>();
+            for (List<double[][]> polygon : feature.polygons()) {
+                List<long[]> rings = new ArrayList<>();
+                for (double[][] ring : polygon) {
+                    long[] points = quantize(ring, kx, ky);
+                    if (points != null) {
+                        rings.add(points);
+                    } else if (rings.isEmpty()) {
+                        // The exterior collapsed on the grid: the polygon is dropped, its holes with it
+                        break;
+                    }
+                }
+                if (!rings.isEmpty()) polygons.add(rings);
+            }
+            quantized.add(polygons);
+        }
+
+        Set<Long> junctions = findJunctions(quantized);
+        Map<ArcKey, Integer> arcIndex = new HashMap<>();
+        List<long[]> arcs = new ArrayList<>();
+        List<EncodedFeature> encoded = new ArrayList<>(features.size());
+        for (int f = 0; f < features.size(); f++) {
+            List<List<int[]>> polygons = new ArrayList<>();
+            for (List<long[]> polygon : quantized.get(f)) {
+                List<int[]> rings = new ArrayList<>(polygon.size());
+                for (long[] ring : polygon) {
+                    rings.add(cut(ring, junctions, arcIndex, arcs));
+                }
+                polygons.add(rings);
+            }
+            encoded.add(new EncodedFeature(features.get(f).kode(), features.get(f).nama(), polygons));
+        }
+
+        // Tolerance in grid cells; the grid is close to square for the extents served here
+        double cells = tolerance > 0 ? tolerance / Math.max(Math.min(kx, ky), Double.MIN_VALUE) : 0;
+        List<int[]> deltas = new ArrayList<>(arcs.size());
+        for (long[] arc : arcs) {
+            deltas.add(deltaEncode(cells > 0 ? simplify(arc, cells) : arc));
+        }
+        return new Topology(new double[]{kx, ky}, new double[]{minX, minY},
+                new double[]{minX, minY, maxX, maxY}, deltas, encoded);
+    }
+
+    // Closed ring of packed grid points without repeated neighbours, or null when fewer than 3 distinct points remain
+    private long[] quantize(double[][] ring, double kx, double ky) {
+        long[] points = new long[ring.length + 1];
+        int size = 0;
+        for (double[] point : ring) {
+            long packed = pack(Math.round((point[0] - minX) / kx), Math.round((point[1] - minY) / ky));
+            if (size == 0 || points[size - 1] != packed) {
+                points[size++] = packed;
+            }
+        }
+        if (size > 1 && points[size - 1] == points[0]) {
+            size--;
+        }
+        if (size < 3) {
+            return null;
+        }
+        points[size] = points[0];
+        return Arrays.copyOf(points, size + 1);
+    }
+
+    private static Set<Long> findJunctions(List<List<List<long[]>>> quantized) {
+        Map<Long, long[]> neighbours = new HashMap<>();
+        Set<Long> junctions = new HashSet<>();
+        for (List<List<long[]>> polygons : quantized) {
+            for (List<long[]> polygon : polygons) {
+                for (long[] ring : polygon) {
+                    int n = ring.length - 1;
+                    for (int i = 0; i < n; i++) {
+                        long point = ring[i];
+                        long previous = ring[(i - 1 + n) % n];
+                        long next = ring[i + 1];
+                        long[] seen = neighbours.putIfAbsent(point, new long[]{previous, next});
+                        if (seen != null && !(seen[0] == previous && seen[1] == next)
+                                && !(seen[0] == next && seen[1] == previous)) {
+                            junctions.add(point);
+                        }
+                    }
+                }
+            }
+        }
+        return junctions;
+    }
+
+    // Arc references of one ring, registering arcs not seen before
+    private static int[] cut(long[] ring, Set<Long> junctions, Map<ArcKey, Integer> arcIndex, List<long[]> arcs) {
+        int n = ring.length - 1;
+        int first = -1;
+        for (int i = 0; i < n; i++) {
+            if (junctions.contains(ring[i])) {
+                first = i;
+                break;
+            }
+        }
+        if (first < 0) {
+            // Shares no junction: the whole ring is one closed arc, possibly identical to another ring
+            return new int[]{reference(rotateToMinimum(ring), rotateToMinimum(reverse(ring)), arcIndex, arcs)};
+        }
+
+        long[] rotated = new long[n + 1];
+        for (int k = 0; k <= n; k++) {
+            rotated[k] = ring[(first + k) % n];
+        }
+        List<Integer> references = new ArrayList<>();
+        int start = 0;
+        for (int k = 1; k <= n; k++) {
+            if (k == n || junctions.contains(rotated[k])) {
+                long[] arc = Arrays.copyOfRange(rotated, start, k + 1);
+                references.add(reference(arc, reverse(arc), arcIndex, arcs));
+                start = k;
+            }
+        }
+        return references.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int reference(long[] forward, long[] backward, Map<ArcKey, Integer> arcIndex, List<long[]> arcs) {
+        Integer index = arcIndex.get(new ArcKey(forward));
+        if (index != null) return index;
+        index = arcIndex.get(new ArcKey(backward));
+        if (index != null) return ~index;
+        arcIndex.put(new ArcKey(forward), arcs.size());
+        arcs.add(forward);
+        return arcs.size() - 1;
+    }
+
+    private static long[] rotateToMinimum(long[] ring) {
+        int n = ring.length - 1;
+        int min = 0;
+        for (int i = 1; i < n; i++) {
+            if (ring[i] < ring[min]) min = i;
+        }
+        long[] rotated = new long[n + 1];
+        for (int k = 0; k <= n; k++) {
+            rotated[k] = ring[(min + k) % n];
+        }
+        return rotated;
+    }
+
+    private static long[] reverse(long[] points) {
+        long[] reversed = new long[points.length];
+        for (int i = 0; i < points.length; i++) {
+            reversed[i] = points[points.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    /**
+     * Douglas-Peucker keeping both end points. A closed arc is split at its farthest point first and keeps at least
+     * four points so the ring stays a ring.
+     */
+    static long[] simplify(long[] arc, double tolerance) {
+        if (arc.length <= 2) return arc;
+        boolean[] keep = new boolean[arc.length];
+        keep[0] = true;
+        keep[arc.length - 1] = true;
+        if (arc[0] == arc[arc.length - 1]) {
+            int farthest = 1;
+            double best = -1;
+            for (int i = 1; i < arc.length - 1; i++) {
+                double distance = Math.hypot(x(arc[i]) - x(arc[0]), y(arc[i]) - y(arc[0]));
+                if (distance > best) {
+                    best = distance;
+                    farthest = i;
+                }
+            }
+            keep[farthest] = true;
+            mark(arc, 0, farthest, tolerance, keep);
+            mark(arc, farthest, arc.length - 1, tolerance, keep);
+        } else {
+            mark(arc, 0, arc.length - 1, tolerance, keep);
+        }
+
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        if (arc[0] == arc[arc.length - 1] && kept < 4) {
+            return arc.length <= 4 ? arc : new long[]{arc[0], arc[arc.length / 3], arc[2 * arc.length / 3], arc[0]};
+        }
+        long[] simplified = new long[kept];
+        int j = 0;
+        for (int i = 0; i < arc.length; i++) {
+            if (keep[i]) simplified[j++] = arc[i];
+        }
+        return simplified;
+    }
+
+    private static void mark(long[] arc, int from, int to, double tolerance, boolean[] keep) {
+        // Iterative to stay clear of deep recursion on long coastlines
+        int[] stack = new int[Math.max(16, 2 * (to - from + 1))];
+        int top = 0;
+        stack[top++] = from;
+        stack[top++] = to;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            double ax = x(arc[start]), ay = y(arc[start]);
+            double bx = x(arc[end]), by = y(arc[end]);
+            double length = Math.hypot(bx - ax, by - ay);
+            int farthest = -1;
+            double best = tolerance;
+            for (int i = start + 1; i < end; i++) {
+                double px = x(arc[i]), py = y(arc[i]);
+                double distance = length == 0
+                        ? Math.hypot(px - ax, py - ay)
+                        : Math.abs((bx - ax) * (ay - py) - (ax - px) * (by - ay)) / length;
+                if (distance > best) {
+                    best = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+    }
+
+    private static int[] deltaEncode(long[] arc) {
+        int[] encoded = new int[arc.length * 2];
+        int previousX = 0, previousY = 0;
+        for (int i = 0; i < arc.length; i++) {
+            int px = x(arc[i]), py = y(arc[i]);
+            encoded[2 * i] = px - previousX;
+            encoded[2 * i + 1] = py - previousY;
+            previousX = px;
+            previousY = py;
+        }
+        return encoded;
+    }
+
+    private static long pack(long x, long y) {
+        return (x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int x(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    private static int y(long packed) {
+        return (int) packed;
+    }
+
+    private record ArcKey(long[] points) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArcKey key && Arrays.equals(points, key.points);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(points);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package id.my.hendisantika.postgis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.repository.SubDistrictRepository;
+import id.my.hendisantika.postgis.repository.VillageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 09.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorTileService {
+
+    private static final byte[] EMPTY_TILE = new byte[0];
+
+    private final SubDistrictRepository subDistrictRepository;
+    private final VillageRepository villageRepository;
+    private final WilayahProperties properties;
+    private final Cache<String, byte[]> vectorTileCache;
+
+    public boolean isValidTile(int z, int x, int y) {
+        if (z < 0 || z > properties.getTiles().getMaxZoom()) return false;
+        int tilesPerSide = 1 << z;
+        return x >= 0 && x < tilesPerSide && y >= 0 && y < tilesPerSide;
+    }
+
+    /**
+     * Resolves the {level} path segment. "auto" picks kecamatan or desa from the zoom,
+     * an explicit level is served as long as the zoom is deep enough for it.
+     */
+    public Optional<AdminLevel> resolveLevel(String level, int z) {
+        WilayahProperties.Tiles tiles = properties.getTiles();
+        if (z < tiles.getMinZoom()) {
+            return Optional.empty();
+        }
+        if ("auto".equalsIgnoreCase(level)) {
+            return Optional.of(z >= tiles.getDesaMinZoom() ? AdminLevel.DESA : AdminLevel.KECAMATAN);
+        }
+        return AdminLevel.ofSlug(level)
+                .filter(adminLevel -> adminLevel == AdminLevel.KECAMATAN
+                        || (adminLevel == AdminLevel.DESA && z >= tiles.getDesaMinZoom()));
+    }
+
+    public byte[] getTile(AdminLevel level, int z, int x, int y) {
+        String key = level.getSlug() + "/" + z + "/" + x + "/" + y;
+        try {
+            return vectorTileCache.get(key, k -> renderTile(level, z, x, y));
+        } catch (Exception e) {
+            // Failed renders are not cached so the next request retries PostGIS
+            log.error("Error rendering {} tile {}/{}/{}", level.getSlug(), z, x, y, e);
+            return EMPTY_TILE;
+        }
+    }
+
+    private byte[] renderTile(AdminLevel level, int z, int x, int y) {
+        byte[] tile = switch (level) {
+            case KECAMATAN -> subDistrictRepository.findVectorTile(z, x, y);
+            case DESA -> villageRepository.findVectorTile(z, x, y);
+            default -> null;
+        };
+        return tile != null ? tile : EMPTY_TILE;
+    }
+}
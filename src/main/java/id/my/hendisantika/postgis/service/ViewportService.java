@@ -0,0 +1,139 @@
+package id.my.hendisantika.postgis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import id.my.hendisantika.postgis.dto.CachedPayload;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.repository.BoundaryFeatureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 19.30
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ViewportService {
+
+    // Web Mercator latitude limit
+    public static final double MAX_LATITUDE = 85.0511287798;
+
+    private final BoundaryFeatureRepository boundaryFeatureRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final QueryMetrics queryMetrics;
+    private final WilayahProperties properties;
+    private final Cache<String, CachedPayload> viewportCache;
+
+    public AdminLevel resolveLevel(int zoom) {
+        WilayahProperties.Viewport viewport = properties.getViewport();
+        if (zoom >= viewport.getDesaMinZoom()) return AdminLevel.DESA;
+        if (zoom >= viewport.getKecamatanMinZoom()) return AdminLevel.KECAMATAN;
+        if (zoom >= viewport.getKabupatenMinZoom()) return AdminLevel.KABUPATEN;
+        return AdminLevel.PROVINSI;
+    }
+
+    /**
+     * Expands the bbox (minLng, minLat, maxLng, maxLat) to the tiles it touches at this zoom. Pans that stay inside
+     * the same tiles share one cache entry. Empty when the bbox spans more than wilayah.viewport.max-tiles-per-side.
+     */
+    public Optional<TileRange> snap(double[] bbox, int zoom) {
+        int tiles = 1 << zoom;
+        int minX = tileX(bbox[0], tiles);
+        int maxX = tileX(bbox[2], tiles);
+        int minY = tileY(bbox[3], tiles);
+        int maxY = tileY(bbox[1], tiles);
+        int maxTilesPerSide = properties.getViewport().getMaxTilesPerSide();
+        if (maxX - minX + 1 > maxTilesPerSide || maxY - minY + 1 > maxTilesPerSide) {
+            return Optional.empty();
+        }
+        return Optional.of(new TileRange(zoom, minX, minY, maxX, maxY));
+    }
+
+    /**
+     * FeatureCollection of the level chosen for the zoom inside the snapped bbox, simplified to one pixel.
+     */
+    public CachedPayload getViewport(TileRange range) {
+        AdminLevel level = resolveLevel(range.zoom());
+        String key = level.getSlug() + "/" + range.zoom() + "/" + range.minX() + "/" + range.minY()
+                + "/" + range.maxX() + "/" + range.maxY();
+        return viewportCache.get(key, k -> render(level, range, k));
+    }
+
+    // Cached viewports were drawn from the previous boundary store and simplified geometries
+    @EventListener(BoundaryStoreRefreshedEvent.class)
+    public void onBoundaryStoreRefreshed() {
+        viewportCache.invalidateAll();
+    }
+
+    private CachedPayload render(AdminLevel level, TileRange range, String key) {
+        double tolerance = GeometryResolution.pixelSizeDegrees(range.zoom());
+        // Enough digits to resolve one pixel, never more than the source precision
+        int decimalDigits = Math.clamp((long) Math.ceil(-Math.log10(tolerance)), 0, 9);
+        GeometryResolution resolution = GeometryResolution.forZoom(range.zoom());
+        int maxFeatures = properties.getViewport().getMaxFeatures();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        long start = System.nanoTime();
+        long count;
+        try (GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(objectMapper, out, false)) {
+            queryMetrics.observe("viewport", level, key, () -> readOnly.executeWithoutResult(status ->
+                    boundaryFeatureRepository.streamViewport(level, range.envelope(), resolution.getCode(), tolerance,
+                            decimalDigits, maxFeatures,
+                            (kode, nama, geojson) -> writer.writeFeature(kode, nama, level.getLabel(), geojson))));
+            writer.finish();
+            count = writer.getCount();
+        }
+        byte[] body = out.toByteArray();
+        log.debug("Viewport {} rendered {} {} features{} ({} bytes) in {} ms", key, count, level.getSlug(),
+                count >= maxFeatures ? " (capped)" : "", body.length, (System.nanoTime() - start) / 1_000_000);
+        return CachedPayload.of(body, BoundaryPayloadService.strongEtag(body));
+    }
+
+    private static int tileX(double lng, int tiles) {
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * tiles);
+        return Math.clamp(x, 0, tiles - 1);
+    }
+
+    private static int tileY(double lat, int tiles) {
+        double latRad = Math.toRadians(Math.clamp(lat, -MAX_LATITUDE, MAX_LATITUDE));
+        int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * tiles);
+        return Math.clamp(y, 0, tiles - 1);
+    }
+
+    public record TileRange(int zoom, int minX, int minY, int maxX, int maxY) {
+
+        // minLng, minLat, maxLng, maxLat of the outer tile edges
+        public double[] envelope() {
+            int tiles = 1 << zoom;
+            return new double[]{lng(minX, tiles), lat(maxY + 1, tiles), lng(maxX + 1, tiles), lat(minY, tiles)};
+        }
+
+        private static double lng(int x, int tiles) {
+            return x * 360.0 / tiles - 180.0;
+        }
+
+        private static double lat(int y, int tiles) {
+            return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * y / tiles))));
+        }
+    }
+}
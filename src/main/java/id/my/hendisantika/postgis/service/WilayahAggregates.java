@@ -0,0 +1,223 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.ClassBreakMethod;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.15
+ * To change this template use File | Settings | File Templates.
+ */
+public final class WilayahAggregates {
+
+    private static final AdminLevel[] LEVELS = AdminLevel.values();
+
+    // Indexed like the tree's level arrays. Measured values are NaN where the source has none; a node without one
+    // gets the sum of its children, so kabupaten area comes from its kecamatan and provinsi population from its
+    // kabupaten when the provinsi row has no penduduk
+    private final WilayahTree tree;
+    private final double[][] measuredArea;
+    private final double[][] measuredPopulation;
+    private final double[][] area;
+    private final double[][] population;
+    // descendants[level][deeper level][index]: units of the deeper level under the node
+    private final int[][][] descendants;
+
+    private WilayahAggregates(WilayahTree tree, double[][] measuredArea, double[][] measuredPopulation,
+                              double[][] area, double[][] population, int[][][] descendants) {
+        this.tree = tree;
+        this.measuredArea = measuredArea;
+        this.measuredPopulation = measuredPopulation;
+        this.area = area;
+        this.population = population;
+        this.descendants = descendants;
+    }
+
+    /**
+     * Collects measurements by kode before a build. Rows of different levels may be put from different threads:
+     * every level has its own arrays and every kode its own slot.
+     */
+    public static final class Measures {
+        private final WilayahTree tree;
+        private final double[][] area;
+        private final double[][] population;
+
+        public Measures(WilayahTree tree) {
+            this.tree = tree;
+            this.area = filled(tree, Double.NaN);
+            this.population = filled(tree, Double.NaN);
+        }
+
+        public void putArea(String kode, double value) {
+            put(area, kode, value);
+        }
+
+        public void putPopulation(String kode, double value) {
+            put(population, kode, value);
+        }
+
+        private void put(double[][] values, String kode, double value) {
+            int index = tree.indexOf(kode);
+            if (index >= 0) {
+                values[AdminLevel.ofKode(kode).orElseThrow().ordinal()][index] = value;
+            }
+        }
+    }
+
+    /**
+     * Rolls every level up bottom-first; each level is one parallel pass in which every parent only writes its own slot.
+     */
+    public static WilayahAggregates build(Measures measures) {
+        WilayahTree tree = measures.tree;
+        int[][][] descendants = new int[LEVELS.length][LEVELS.length][];
+        for (AdminLevel level : LEVELS) {
+            for (int deeper = level.ordinal() + 1; deeper < LEVELS.length; deeper++) {
+                descendants[level.ordinal()][deeper] = new int[tree.size(level)];
+            }
+        }
+        WilayahAggregates aggregates = new WilayahAggregates(tree, measures.area, measures.population,
+                filled(tree, Double.NaN), filled(tree, Double.NaN), descendants);
+        for (int p = LEVELS.length - 1; p >= 0; p--) {
+            int parentLevel = p;
+            IntStream.range(0, tree.size(LEVELS[p])).parallel().forEach(i -> {
+                aggregates.countDescendants(parentLevel, i);
+                aggregates.rollUp(parentLevel, i);
+            });
+        }
+        return aggregates;
+    }
+
+    /**
+     * Copy with the measurements of kode and its descendants replaced by those in measures, for which only this
+     * subtree needs to have been queried. Only the subtree and the ancestors of kode are rolled up again.
+     */
+    public WilayahAggregates withSubtree(String kode, Measures measures) {
+        if (measures.tree != tree) {
+            throw new IllegalArgumentException("Measures were collected for another tree");
+        }
+        AdminLevel level = AdminLevel.ofKode(kode).orElseThrow();
+        WilayahAggregates updated = new WilayahAggregates(tree, copy(measuredArea), copy(measuredPopulation),
+                copy(area), copy(population), descendants);
+        int[][] ranges = new int[LEVELS.length][];
+        for (int d = level.ordinal(); d < LEVELS.length; d++) {
+            ranges[d] = subtreeRange(kode, level, LEVELS[d]);
+            for (int i = ranges[d][0]; i < ranges[d][1]; i++) {
+                updated.measuredArea[d][i] = measures.area[d][i];
+                updated.measuredPopulation[d][i] = measures.population[d][i];
+            }
+        }
+        for (int d = LEVELS.length - 1; d >= level.ordinal(); d--) {
+            int parentLevel = d;
+            IntStream.range(ranges[d][0], ranges[d][1]).parallel().forEach(i -> updated.rollUp(parentLevel, i));
+        }
+        for (int d = level.ordinal() - 1; d >= 0; d--) {
+            int index = tree.indexOf(kode.substring(0, LEVELS[d].getKodeLength()));
+            if (index >= 0) updated.rollUp(d, index);
+        }
+        return updated;
+    }
+
+    public WilayahTree getTree() {
+        return tree;
+    }
+
+    public double area(AdminLevel level, int index) {
+        return area[level.ordinal()][index];
+    }
+
+    public double population(AdminLevel level, int index) {
+        return population[level.ordinal()][index];
+    }
+
+    // Inhabitants per km², NaN unless both sides are known
+    public double density(AdminLevel level, int index) {
+        double a = area(level, index);
+        double p = population(level, index);
+        return a > 0 ? p / a : Double.NaN;
+    }
+
+    public int descendants(AdminLevel level, int index, AdminLevel deeper) {
+        return deeper.ordinal() > level.ordinal() ? descendants[level.ordinal()][deeper.ordinal()][index] : 0;
+    }
+
+    /**
+     * classes + 1 ascending bounds from the smallest to the largest value, NaN values ignored; empty when none is known.
+     */
+    public static double[] classBreaks(double[] values, int classes, ClassBreakMethod method) {
+        double[] known = Arrays.stream(values).filter(value -> !Double.isNaN(value)).sorted().toArray();
+        if (known.length == 0 || classes < 1) {
+            return new double[0];
+        }
+        double[] breaks = new double[classes + 1];
+        breaks[0] = known[0];
+        breaks[classes] = known[known.length - 1];
+        for (int c = 1; c < classes; c++) {
+            breaks[c] = switch (method) {
+                case QUANTILE -> known[Math.max((int) ((long) c * known.length / classes) - 1, 0)];
+                case EQUAL_INTERVAL -> known[0] + c * (known[known.length - 1] - known[0]) / classes;
+            };
+        }
+        return breaks;
+    }
+
+    private void countDescendants(int p, int i) {
+        String kode = tree.node(LEVELS[p], i).getKode();
+        for (int d = p + 1; d < LEVELS.length; d++) {
+            int[] range = tree.childRange(kode, LEVELS[d]);
+            descendants[p][d][i] = range[1] - range[0];
+        }
+    }
+
+    private void rollUp(int p, int i) {
+        double childArea = Double.NaN;
+        double childPopulation = Double.NaN;
+        if (p + 1 < LEVELS.length) {
+            int[] range = tree.childRange(tree.node(LEVELS[p], i).getKode(), LEVELS[p + 1]);
+            for (int c = range[0]; c < range[1]; c++) {
+                childArea = add(childArea, area[p + 1][c]);
+                childPopulation = add(childPopulation, population[p + 1][c]);
+            }
+        }
+        area[p][i] = Double.isNaN(measuredArea[p][i]) ? childArea : measuredArea[p][i];
+        population[p][i] = Double.isNaN(measuredPopulation[p][i]) ? childPopulation : measuredPopulation[p][i];
+    }
+
+    private int[] subtreeRange(String kode, AdminLevel level, AdminLevel deeper) {
+        if (deeper == level) {
+            int index = tree.indexOf(kode);
+            return index >= 0 ? new int[]{index, index + 1} : new int[]{0, 0};
+        }
+        return tree.childRange(kode, deeper);
+    }
+
+    // NaN means "unknown" and does not turn a sum of known values into NaN
+    private static double add(double sum, double value) {
+        if (Double.isNaN(value)) return sum;
+        return Double.isNaN(sum) ? value : sum + value;
+    }
+
+    private static double[][] filled(WilayahTree tree, double value) {
+        double[][] values = new double[LEVELS.length][];
+        for (AdminLevel level : LEVELS) {
+            values[level.ordinal()] = new double[tree.size(level)];
+            Arrays.fill(values[level.ordinal()], value);
+        }
+        return values;
+    }
+
+    private static double[][] copy(double[][] values) {
+        double[][] copy = new double[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            copy[i] = values[i].clone();
+        }
+        return copy;
+    }
+}
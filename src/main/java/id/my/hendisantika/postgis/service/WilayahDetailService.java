@@ -0,0 +1,61 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.CachedPayload;
+import id.my.hendisantika.postgis.dto.WilayahDetail;
+import id.my.hendisantika.postgis.entity.GeometryFormat;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.entity.WilayahLevel12;
+import id.my.hendisantika.postgis.entity.WilayahLevel34;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 18.45
+ * To change this template use File | Settings | File Templates.
+ */
+@Service
+@RequiredArgsConstructor
+public class WilayahDetailService {
+
+    private final WilayahService wilayahService;
+    private final BoundaryPayloadService boundaryPayloadService;
+
+    /**
+     * Detail panel entity and boundary payload for one map click, fetched concurrently.
+     */
+    public WilayahDetail getDetail(String kode, GeometryResolution resolution) throws InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> entity = executor.submit(() -> kode.length() >= 8
+                    ? wilayahService.getLevel34ByKode(kode).orElse(null)
+                    : wilayahService.getByKode(kode).orElse(null));
+            Future<Optional<CachedPayload>> boundary =
+                    executor.submit(() -> boundaryPayloadService.getBoundary(kode, resolution, GeometryFormat.FEATURE));
+            try {
+                return detail(entity.get(), boundary.get().orElse(null));
+            } catch (ExecutionException e) {
+                // Surfaces as 503 rather than a failed fragment
+                if (e.getCause() instanceof HeavyQueryBusyException busy) throw busy;
+                throw new IllegalStateException("Detail lookup for " + kode + " failed", e.getCause());
+            }
+        }
+    }
+
+    private static WilayahDetail detail(Object wilayah, CachedPayload boundary) {
+        return new WilayahDetail(
+                wilayah instanceof WilayahLevel12 level12 ? level12 : null,
+                wilayah instanceof WilayahLevel34 level34 ? level34 : null,
+                boundary);
+    }
+}
@@ -0,0 +1,251 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.SearchPage;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+
+import java.util.*;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 16.00
+ * To change this template use File | Settings | File Templates.
+ */
+public final class WilayahSearchIndex {
+
+    private static final int SCORE_EXACT = 100;
+    private static final int SCORE_PREFIX = 80;
+    private static final int SCORE_WORD_PREFIX = 60;
+    private static final int SCORE_SUBSTRING = 40;
+    private static final int SCORE_FUZZY = 30;
+
+    // All nodes of the tree in one array; postings hold positions in it
+    private final WilayahNode[] nodes;
+    private final String[] names;
+    private final Map<Long, int[]> postings;
+
+    private WilayahSearchIndex(WilayahNode[] nodes, String[] names, Map<Long, int[]> postings) {
+        this.nodes = nodes;
+        this.names = names;
+        this.postings = postings;
+    }
+
+    public static WilayahSearchIndex build(WilayahTree tree) {
+        WilayahNode[] nodes = new WilayahNode[tree.size()];
+        String[] names = new String[nodes.length];
+        int position = 0;
+        for (AdminLevel level : AdminLevel.values()) {
+            for (WilayahNode node : tree.all(level)) {
+                nodes[position] = node;
+                names[position] = normalize(node.getNama());
+                position++;
+            }
+        }
+
+        Map<Long, IntBuffer> buffers = new HashMap<>();
+        for (int doc = 0; doc < names.length; doc++) {
+            // A trigram occurring twice in one name is posted once: docs are added in increasing order
+            for (long trigram : trigrams(names[doc], false)) {
+                IntBuffer buffer = buffers.computeIfAbsent(trigram, k -> new IntBuffer());
+                if (buffer.size == 0 || buffer.values[buffer.size - 1] != doc) {
+                    buffer.add(doc);
+                }
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>(buffers.size() * 2);
+        buffers.forEach((trigram, buffer) -> postings.put(trigram, buffer.toArray()));
+        return new WilayahSearchIndex(nodes, names, postings);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public SearchPage search(String query, int page, int size) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return new SearchPage(query, page, size, 0, List.of());
+        }
+
+        int[] candidates = candidates(normalized);
+        List<int[]> scored = new ArrayList<>();
+        for (int doc : candidates) {
+            int score = score(names[doc], normalized);
+            if (score > 0) {
+                scored.add(new int[]{doc, score});
+            }
+        }
+        // Best match first, then the higher admin level, then the shorter name
+        scored.sort((a, b) -> {
+            if (a[1] != b[1]) return Integer.compare(b[1], a[1]);
+            int levelCompare = nodes[a[0]].getAdminLevel().compareTo(nodes[b[0]].getAdminLevel());
+            if (levelCompare != 0) return levelCompare;
+            int lengthCompare = Integer.compare(names[a[0]].length(), names[b[0]].length());
+            if (lengthCompare != 0) return lengthCompare;
+            return nodes[a[0]].getKode().compareTo(nodes[b[0]].getKode());
+        });
+
+        // page * size in long: a huge page must give an empty page, not an overflowed negative offset
+        int from = (int) Math.min((long) page * size, scored.size());
+        int to = Math.min(from + size, scored.size());
+        List<WilayahNode> results = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            results.add(nodes[scored.get(i)[0]]);
+        }
+        return new SearchPage(query, page, size, scored.size(), results);
+    }
+
+    private int[] candidates(String normalized) {
+        if (normalized.length() < 3) {
+            // Too short for a trigram inside a word: scan, still well under a millisecond per 10k names.
+            // A single character only matches word prefixes, otherwise nearly every name would
+            IntBuffer matches = new IntBuffer();
+            for (int doc = 0; doc < names.length; doc++) {
+                if (normalized.length() == 1 ? wordPrefix(names[doc], normalized) : names[doc].contains(normalized)) {
+                    matches.add(doc);
+                }
+            }
+            return matches.toArray();
+        }
+
+        long[] queryTrigrams = trigrams(normalized, true);
+
+        // Allow roughly one missing trigram in four so small typos still match
+        int minMatches = queryTrigrams.length <= 3 ? queryTrigrams.length : (int) Math.ceil(queryTrigrams.length * 0.7);
+        int[] counts = new int[names.length];
+        IntBuffer matches = new IntBuffer();
+        for (long trigram : queryTrigrams) {
+            int[] docs = postings.get(trigram);
+            if (docs == null) continue;
+            for (int doc : docs) {
+                if (++counts[doc] == minMatches) {
+                    matches.add(doc);
+                }
+            }
+        }
+
+        // The padded trigrams miss a fragment from the middle of a word; every unpadded trigram of it occurs there
+        long[] innerTrigrams = innerTrigrams(normalized);
+        if (innerTrigrams.length > 0) {
+            int[] innerCounts = new int[names.length];
+            for (long trigram : innerTrigrams) {
+                int[] docs = postings.get(trigram);
+                if (docs == null) continue;
+                for (int doc : docs) {
+                    if (++innerCounts[doc] == innerTrigrams.length && counts[doc] < minMatches) {
+                        matches.add(doc);
+                    }
+                }
+            }
+        }
+        return matches.toArray();
+    }
+
+    private static int score(String name, String query) {
+        if (name.equals(query)) return SCORE_EXACT;
+        if (name.startsWith(query)) return SCORE_PREFIX;
+        if (wordPrefix(name, query)) return SCORE_WORD_PREFIX;
+        if (name.contains(query)) return SCORE_SUBSTRING;
+
+        long[] queryTrigrams = trigrams(query, true);
+        if (queryTrigrams.length == 0) return 0;
+        Set<Long> nameTrigrams = new HashSet<>();
+        for (long trigram : trigrams(name, false)) {
+            nameTrigrams.add(trigram);
+        }
+        int shared = 0;
+        for (long trigram : queryTrigrams) {
+            if (nameTrigrams.contains(trigram)) shared++;
+        }
+        return SCORE_FUZZY * shared / queryTrigrams.length;
+    }
+
+    private static boolean wordPrefix(String name, String query) {
+        int from = 0;
+        while (from >= 0 && from < name.length()) {
+            if (name.startsWith(query, from)) return true;
+            int space = name.indexOf(' ', from);
+            from = space < 0 ? -1 : space + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Trigrams of every word padded with spaces. For a query the last word is still being typed,
+     * so it gets no trailing pad and matches as a prefix.
+     */
+    private static long[] trigrams(String text, boolean query) {
+        String[] words = text.split(" ");
+        List<Long> result = new ArrayList<>();
+        for (int w = 0; w < words.length; w++) {
+            if (words[w].isEmpty()) continue;
+            boolean typing = query && w == words.length - 1;
+            String padded = " " + words[w] + (typing ? "" : " ");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(pack(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+            }
+        }
+        long[] trigrams = new long[result.size()];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = result.get(i);
+        }
+        return query ? Arrays.stream(trigrams).distinct().toArray() : trigrams;
+    }
+
+    // Distinct trigrams inside the words of a query, without the padding that anchors them to a word start
+    private static long[] innerTrigrams(String query) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (String word : query.split(" ")) {
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                result.add(pack(word.charAt(i), word.charAt(i + 1), word.charAt(i + 2)));
+            }
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(ch)) {
+                normalized.append(ch);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
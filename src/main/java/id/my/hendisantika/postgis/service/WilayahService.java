@@ -1,19 +1,38 @@
 package id.my.hendisantika.postgis.service;
 
 import id.my.hendisantika.postgis.dto.BoundaryData;
+import id.my.hendisantika.postgis.dto.ProvinsiDetail;
+import id.my.hendisantika.postgis.dto.QueryFootprint;
+import id.my.hendisantika.postgis.dto.SearchPage;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.dto.WilayahSummary;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.GeometryResolution;
+import id.my.hendisantika.postgis.entity.WilayahHierarchy;
 import id.my.hendisantika.postgis.entity.WilayahLevel12;
 import id.my.hendisantika.postgis.entity.WilayahLevel34;
+import id.my.hendisantika.postgis.repository.SimplifiedGeometryRepository;
 import id.my.hendisantika.postgis.repository.SubDistrictRepository;
 import id.my.hendisantika.postgis.repository.VillageRepository;
+import id.my.hendisantika.postgis.repository.WilayahBoundaryRepository;
+import id.my.hendisantika.postgis.repository.WilayahHierarchyRepository;
 import id.my.hendisantika.postgis.repository.WilayahLevel12Repository;
 import id.my.hendisantika.postgis.repository.WilayahLevel34Repository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Created by IntelliJ IDEA.
@@ -35,107 +54,283 @@ public class WilayahService {
     private final WilayahLevel34Repository wilayahLevel34Repository;
     private final SubDistrictRepository subDistrictRepository;
     private final VillageRepository villageRepository;
+    private final WilayahBoundaryRepository boundaryRepository;
+    private final SimplifiedGeometryRepository simplifiedGeometryRepository;
+    private final WilayahHierarchyRepository hierarchyRepository;
+    private final WilayahTreeService wilayahTreeService;
+    private final QueryMetrics queryMetrics;
+    private final SingleFlight singleFlight;
 
     public List<WilayahLevel12> getAll() {
         return wilayahRepository.findAll();
     }
 
-    public List<WilayahLevel12> getAllProvinsi() {
-        return wilayahRepository.findAllProvinsi();
+    // List methods are served from the in-memory tree; the queries only run until it is built
+
+    public List<WilayahNode> getAllProvinsi() {
+        return wilayahTreeService.current()
+                .map(tree -> tree.all(AdminLevel.PROVINSI))
+                .orElseGet(() -> toNodes(wilayahRepository.findAllProvinsi()));
+    }
+
+    public List<ProvinsiDetail> getAllProvinsiDetail() {
+        return wilayahRepository.findAllProvinsiDetails();
     }
 
-    public List<WilayahLevel12> getKabupatenByProvinsi(String provinsiKode) {
-        return wilayahRepository.findKabupatenByProvinsi(provinsiKode);
+    public List<WilayahNode> getKabupatenByProvinsi(String provinsiKode) {
+        return wilayahTreeService.current()
+                .map(tree -> tree.children(provinsiKode, AdminLevel.KABUPATEN))
+                .orElseGet(() -> getSubtree(provinsiKode, AdminLevel.KABUPATEN));
     }
 
-    public List<WilayahLevel34> getKecamatanByKabupaten(String kabupatenKode) {
-        return wilayahLevel34Repository.findKecamatanByKabupaten(kabupatenKode);
+    public List<WilayahNode> getKecamatanByKabupaten(String kabupatenKode) {
+        return wilayahTreeService.current()
+                .map(tree -> tree.children(kabupatenKode, AdminLevel.KECAMATAN))
+                .orElseGet(() -> getSubtree(kabupatenKode, AdminLevel.KECAMATAN));
     }
 
-    public List<WilayahLevel34> getDesaByKecamatan(String kecamatanKode) {
-        return wilayahLevel34Repository.findDesaByKecamatan(kecamatanKode);
+    public List<WilayahNode> getDesaByKecamatan(String kecamatanKode) {
+        return wilayahTreeService.current()
+                .map(tree -> tree.children(kecamatanKode, AdminLevel.DESA))
+                .orElseGet(() -> getSubtree(kecamatanKode, AdminLevel.DESA));
     }
 
     public Optional<WilayahLevel12> getByKode(String kode) {
         return wilayahRepository.findById(kode);
     }
 
+    // path is lazy; read it inside the transaction for callers that serialize the whole entity
+    public Optional<WilayahLevel12> getByKodeWithPath(String kode) {
+        Optional<WilayahLevel12> wilayah = wilayahRepository.findById(kode);
+        wilayah.ifPresent(WilayahLevel12::getPath);
+        return wilayah;
+    }
+
     public Optional<WilayahLevel34> getLevel34ByKode(String kode) {
         return wilayahLevel34Repository.findById(kode);
     }
 
-    public List<WilayahLevel12> search(String keyword) {
-        return wilayahRepository.searchByNama(keyword);
+    // Subtree and ancestor lookups run against the ltree column of wilayah_hierarchy
+
+    public List<WilayahNode> getSubtree(String rootKode, AdminLevel level) {
+        if (!AdminLevel.isKode(rootKode)) {
+            return List.of();
+        }
+        return queryMetrics.observe("hierarchy-subtree", level, rootKode,
+                () -> toHierarchyNodes(hierarchyRepository.findSubtree(rootKode, (short) level.getLevel())));
+    }
+
+    public List<WilayahNode> getDescendants(String rootKode) {
+        if (!AdminLevel.isKode(rootKode)) {
+            return List.of();
+        }
+        return queryMetrics.observe("hierarchy-descendants", AdminLevel.ofKode(rootKode).orElse(null), rootKode,
+                () -> toHierarchyNodes(hierarchyRepository.findDescendants(rootKode)));
+    }
+
+    public List<WilayahNode> getAncestors(String kode) {
+        if (!AdminLevel.isKode(kode)) {
+            return List.of();
+        }
+        return queryMetrics.observe("hierarchy-ancestors", AdminLevel.ofKode(kode).orElse(null), kode,
+                () -> toHierarchyNodes(hierarchyRepository.findAncestorChain(kode)));
+    }
+
+    @Transactional
+    public void refreshHierarchy() {
+        hierarchyRepository.refresh();
     }
 
+    public List<WilayahNode> search(String keyword) {
+        return search(keyword, 0, 50).getResults();
+    }
+
+    // Ranked across all four levels from the in-memory trigram index
+    public SearchPage search(String keyword, int page, int size) {
+        return wilayahTreeService.currentSearchIndex()
+                .map(index -> index.search(keyword, page, size))
+                .orElseGet(() -> {
+                    List<WilayahNode> all = toNodes(wilayahRepository.searchByNama(keyword));
+                    int from = (int) Math.min((long) page * size, all.size());
+                    int to = Math.min(from + size, all.size());
+                    return new SearchPage(keyword, page, size, all.size(), all.subList(from, to));
+                });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<BoundaryData> getBoundaryData(String kode) {
+        return getBoundaryData(kode, GeometryResolution.FULL);
+    }
+
+    /**
+     * Attributes and geometry are independent lookups, so they run concurrently on virtual threads, each with
+     * its own short-lived connection. No surrounding transaction is opened to avoid holding a third one.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<BoundaryData> getBoundaryData(String kode, GeometryResolution resolution) {
         try {
             int kodeLength = kode.length();
+            AdminLevel adminLevel = AdminLevel.ofKode(kode).orElse(null);
 
             // Level 3 (kecamatan) or Level 4 (desa) - from wilayah_level_3_4
             if (kodeLength >= 8) {
-                Optional<WilayahLevel34> w34 = getLevel34ByKode(kode);
-                if (w34.isEmpty()) {
+                Fetched<Optional<WilayahLevel34>> fetched = fetchConcurrently(
+                        () -> queryMetrics.observe("wilayah", adminLevel, kode, () -> getLevel34ByKode(kode)),
+                        Optional::isPresent,
+                        () -> findGeometry(kode, adminLevel, resolution));
+                if (fetched.attributes().isEmpty()) {
                     return Optional.empty();
                 }
 
-                WilayahLevel34 wilayah = w34.get();
+                WilayahLevel34 wilayah = fetched.attributes().get();
                 BoundaryData.BoundaryDataBuilder builder = BoundaryData.builder()
                         .kode(wilayah.getKode())
                         .nama(wilayah.getNama())
                         .level(wilayah.getLevelName())
                         .lat(wilayah.getLat())
                         .lng(wilayah.getLng());
-
-                // Get geometry from PostGIS tables
-                String geoJson = null;
-                if (kodeLength == 8) {
-                    geoJson = subDistrictRepository.findGeometryAsGeoJSON(kode);
-                } else if (kodeLength == 13) {
-                    geoJson = villageRepository.findGeometryAsGeoJSON(kode);
-                }
-
-                if (geoJson != null && !geoJson.isEmpty()) {
-                    builder.coordinates(geoJson);
-                } else if (wilayah.getPath() != null && !wilayah.getPath().isEmpty()) {
-                    builder.coordinates(wilayah.getPath());
-                }
-
-                return Optional.of(builder.build());
+                return Optional.of(withGeometry(builder, fetched.geometry(), adminLevel,
+                        () -> wilayahLevel34Repository.findPathByKode(kode).orElse(null)));
             }
 
             // Level 1 (provinsi) or Level 2 (kabupaten) - from wilayah_level_1_2
-            Optional<WilayahLevel12> wilayahOpt = getByKode(kode);
-            if (wilayahOpt.isEmpty()) {
+            Fetched<Optional<WilayahLevel12>> fetched = fetchConcurrently(
+                    () -> queryMetrics.observe("wilayah", adminLevel, kode, () -> getByKode(kode)),
+                    Optional::isPresent,
+                    () -> findGeometry(kode, adminLevel, resolution));
+            if (fetched.attributes().isEmpty()) {
                 return Optional.empty();
             }
 
-            WilayahLevel12 wilayah = wilayahOpt.get();
+            WilayahLevel12 wilayah = fetched.attributes().get();
             BoundaryData.BoundaryDataBuilder builder = BoundaryData.builder()
                     .kode(wilayah.getKode())
                     .nama(wilayah.getNama())
                     .level(wilayah.getLevel())
                     .lat(wilayah.getLat())
                     .lng(wilayah.getLng());
+            return Optional.of(withGeometry(builder, fetched.geometry(), adminLevel,
+                    () -> wilayahRepository.findPathByKode(kode).orElse(null)));
 
-            if (kodeLength == 5) {
-                // Kabupaten: compute boundary from ST_Union of kecamatan geometries
-                String geoJson = subDistrictRepository.findKabupatenBoundaryAsGeoJSON(kode);
-                if (geoJson != null && !geoJson.isEmpty()) {
-                    builder.coordinates(geoJson);
-                } else if (wilayah.getPath() != null && !wilayah.getPath().isEmpty()) {
-                    builder.coordinates(wilayah.getPath());
-                }
-            } else if (wilayah.getPath() != null && !wilayah.getPath().isEmpty()) {
-                // Provinsi: use path field (ST_Union too expensive for hundreds of kecamatan)
-                builder.coordinates(wilayah.getPath());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof HeavyQueryBusyException busy) {
+                // Overload, not a missing wilayah: must not end up as an empty (404) result
+                throw busy;
             }
-
-            return Optional.of(builder.build());
-
+            log.error("Error getting boundary data for kode: {}", kode, e);
+            return Optional.empty();
         } catch (Exception e) {
             log.error("Error getting boundary data for kode: {}", kode, e);
             return Optional.empty();
         }
     }
+
+    private record GeometryLookup(String geoJson, GeometryResolution served, String source) {
+    }
+
+    private record Fetched<T>(T attributes, GeometryLookup geometry) {
+    }
+
+    // Geometry is null when the attributes were not found; its query is interrupted then rather than run to the end
+    private <T> Fetched<T> fetchConcurrently(Callable<T> attributes, Predicate<T> found,
+                                             Callable<GeometryLookup> geometry)
+            throws InterruptedException, ExecutionException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<GeometryLookup> geometryTask = executor.submit(geometry);
+            Future<T> attributesTask = executor.submit(attributes);
+            T result;
+            try {
+                result = attributesTask.get();
+            } catch (ExecutionException | InterruptedException e) {
+                geometryTask.cancel(true);
+                throw e;
+            }
+            if (!found.test(result)) {
+                geometryTask.cancel(true);
+                return new Fetched<>(result, null);
+            }
+            return new Fetched<>(result, geometryTask.get());
+        }
+    }
+
+    private GeometryLookup findGeometry(String kode, AdminLevel adminLevel, GeometryResolution resolution) {
+        String geoJson = findSimplifiedGeoJSON(kode, adminLevel, resolution);
+        if (geoJson != null) {
+            return new GeometryLookup(geoJson, resolution, "simplified");
+        }
+
+        int kodeLength = kode.length();
+        if (kodeLength == 8) {
+            return new GeometryLookup(singleFlight.execute("subdistrict-geometry", kode, false,
+                    () -> queryMetrics.observe("subdistrict-geometry", adminLevel, kode,
+                            () -> subDistrictRepository.findGeometryAsGeoJSON(kode))), GeometryResolution.FULL, "source");
+        }
+        if (kodeLength == 13) {
+            return new GeometryLookup(singleFlight.execute("village-geometry", kode, false,
+                    () -> queryMetrics.observe("village-geometry", adminLevel, kode,
+                            () -> villageRepository.findGeometryAsGeoJSON(kode))), GeometryResolution.FULL, "source");
+        }
+
+        // Provinsi and kabupaten boundaries come precomputed from wilayah_boundary_1_2
+        geoJson = queryMetrics.observe("boundary-store", adminLevel, kode,
+                () -> boundaryRepository.findGeoJSONByKode(kode));
+        if ((geoJson == null || geoJson.isEmpty()) && kodeLength == 5) {
+            // Store not built yet: compute the kabupaten boundary from ST_Union of kecamatan geometries, once for
+            // all concurrent callers and within the global limit on heavy queries
+            return new GeometryLookup(singleFlight.execute("kabupaten-union", kode, true,
+                    () -> queryMetrics.observe("kabupaten-union", adminLevel, kode,
+                            () -> subDistrictRepository.findKabupatenBoundaryAsGeoJSON(kode))), GeometryResolution.FULL, "union");
+        }
+        return new GeometryLookup(geoJson, GeometryResolution.FULL, "store");
+    }
+
+    private BoundaryData withGeometry(BoundaryData.BoundaryDataBuilder builder, GeometryLookup geometry,
+                                      AdminLevel adminLevel, Supplier<String> path) {
+        if (geometry.geoJson() != null && !geometry.geoJson().isEmpty()) {
+            queryMetrics.recordGeometry(adminLevel, geometry.source(), geometry.geoJson());
+            return builder.coordinates(geometry.geoJson()).tolerance(geometry.served().getTolerance()).build();
+        }
+        // Only wilayah without any geometry fall back to the path column, fetched on its own
+        String fallback = path.get();
+        if (fallback != null && !fallback.isEmpty()) {
+            builder.coordinates(fallback);
+        }
+        return builder.build();
+    }
+
+    // Bytes each list query reads as full entities vs the summary projection it uses now
+    public List<QueryFootprint> measureFootprint() {
+        return List.of(
+                QueryFootprint.of(AdminLevel.PROVINSI.getSlug(), wilayahRepository.measureFootprint(AdminLevel.PROVINSI.getKodeLength())),
+                QueryFootprint.of(AdminLevel.KABUPATEN.getSlug(), wilayahRepository.measureFootprint(AdminLevel.KABUPATEN.getKodeLength())),
+                QueryFootprint.of(AdminLevel.KECAMATAN.getSlug(), wilayahLevel34Repository.measureFootprint(AdminLevel.KECAMATAN.getLevel())),
+                QueryFootprint.of(AdminLevel.DESA.getSlug(), wilayahLevel34Repository.measureFootprint(AdminLevel.DESA.getLevel())));
+    }
+
+    private String findSimplifiedGeoJSON(String kode, AdminLevel level, GeometryResolution resolution) {
+        if (!resolution.isSimplified()) {
+            return null;
+        }
+        return queryMetrics.observe("simplified-geometry", level, kode,
+                () -> simplifiedGeometryRepository.findGeoJSON(kode, resolution.getCode()));
+    }
+
+    private List<WilayahNode> toNodes(List<? extends WilayahSummary> wilayahList) {
+        return wilayahList.stream()
+                .flatMap(w -> AdminLevel.ofKode(w.getKode())
+                        .map(level -> new WilayahNode(w.getKode(), w.getNama(), w.getLat(), w.getLng(), level))
+                        .stream())
+                .toList();
+    }
+
+    private List<WilayahNode> toHierarchyNodes(List<WilayahHierarchy> rows) {
+        return rows.stream()
+                .flatMap(w -> AdminLevel.ofLevel(w.getLevel())
+                        .map(level -> new WilayahNode(w.getKode(), w.getNama(), w.getLat(), w.getLng(), level))
+                        .stream())
+                .toList();
+    }
 }
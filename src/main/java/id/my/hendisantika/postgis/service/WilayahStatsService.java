@@ -0,0 +1,204 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.StatsResult;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.dto.WilayahStats;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.ClassBreakMethod;
+import id.my.hendisantika.postgis.repository.WilayahStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.30
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WilayahStatsService {
+
+    private static final AdminLevel[] LEVELS = AdminLevel.values();
+
+    private final WilayahStatsRepository wilayahStatsRepository;
+    private final WilayahTreeService wilayahTreeService;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskExecutor applicationTaskExecutor;
+
+    private final AtomicReference<WilayahAggregates> aggregates = new AtomicReference<>();
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    /**
+     * Current aggregates, or empty before the first build. Aggregates built on an older tree stay consistent with
+     * that tree and keep answering while a rebuild for the new one runs in the background.
+     */
+    public Optional<WilayahAggregates> current() {
+        WilayahAggregates current = aggregates.get();
+        Optional<WilayahTree> tree = wilayahTreeService.current();
+        if (tree.isPresent() && (current == null || current.getTree() != tree.get())) {
+            rebuildInBackground();
+        }
+        return Optional.ofNullable(current);
+    }
+
+    // The tree is built by another ApplicationReadyEvent listener; if it is not there yet, current() retries later
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildInBackground();
+    }
+
+    public void rebuildInBackground() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        applicationTaskExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Error building wilayah aggregates", e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    /**
+     * Measures every unit and rolls the whole tree up.
+     */
+    public synchronized Optional<WilayahAggregates> rebuild() throws InterruptedException {
+        Optional<WilayahTree> tree = wilayahTreeService.current();
+        if (tree.isEmpty()) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        WilayahAggregates built = WilayahAggregates.build(measure(tree.get(), ""));
+        aggregates.set(built);
+        log.info("Wilayah aggregates built for {} nodes in {} ms", tree.get().size(), (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(built);
+    }
+
+    /**
+     * Measures only kode and its descendants again and rolls up that subtree and its ancestors, e.g. after the
+     * geometries or penduduk of one kabupaten were reloaded. Falls back to a full build when the tree has changed.
+     */
+    public synchronized Optional<WilayahAggregates> refresh(String kode) throws InterruptedException {
+        WilayahAggregates current = aggregates.get();
+        Optional<WilayahTree> tree = wilayahTreeService.current();
+        if (current == null || tree.isEmpty() || current.getTree() != tree.get()) {
+            return rebuild();
+        }
+        long start = System.nanoTime();
+        WilayahAggregates updated = current.withSubtree(kode, measure(current.getTree(), kode));
+        aggregates.set(updated);
+        log.info("Wilayah aggregates refreshed under {} in {} ms", kode, (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(updated);
+    }
+
+    /**
+     * Metrics of kode and of each of its descendants at childLevel, with class breaks over the children per metric.
+     */
+    public Optional<StatsResult> stats(WilayahAggregates aggregates, String kode, AdminLevel childLevel,
+                                       int classes, ClassBreakMethod method) {
+        long start = System.nanoTime();
+        WilayahTree tree = aggregates.getTree();
+        int index = tree.indexOf(kode);
+        if (index < 0) {
+            return Optional.empty();
+        }
+        AdminLevel level = AdminLevel.ofKode(kode).orElseThrow();
+        int[] range = tree.childRange(kode, childLevel);
+        int count = range[1] - range[0];
+        double[] area = new double[count];
+        double[] population = new double[count];
+        double[] density = new double[count];
+        List<WilayahStats> children = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            int child = range[0] + c;
+            area[c] = aggregates.area(childLevel, child);
+            population[c] = aggregates.population(childLevel, child);
+            density[c] = aggregates.density(childLevel, child);
+            children.add(toStats(aggregates, childLevel, child));
+        }
+
+        Map<String, double[]> breaks = new LinkedHashMap<>();
+        breaks.put("areaKm2", WilayahAggregates.classBreaks(area, classes, method));
+        breaks.put("population", WilayahAggregates.classBreaks(population, classes, method));
+        breaks.put("density", WilayahAggregates.classBreaks(density, classes, method));
+        return Optional.of(StatsResult.builder()
+                .parent(toStats(aggregates, level, index))
+                .childLevel(childLevel.getLabel())
+                .method(method.getSlug())
+                .classes(classes)
+                .breaks(breaks)
+                .children(children)
+                .elapsedMicros((System.nanoTime() - start) / 1_000)
+                .build());
+    }
+
+    private static WilayahStats toStats(WilayahAggregates aggregates, AdminLevel level, int index) {
+        Map<String, Integer> descendants = new LinkedHashMap<>();
+        for (int d = level.ordinal() + 1; d < LEVELS.length; d++) {
+            descendants.put(LEVELS[d].getSlug(), aggregates.descendants(level, index, LEVELS[d]));
+        }
+        WilayahNode node = aggregates.getTree().node(level, index);
+        return WilayahStats.builder()
+                .kode(node.getKode())
+                .nama(node.getNama())
+                .level(level.getLabel())
+                .areaKm2(orNull(aggregates.area(level, index)))
+                .population(orNull(aggregates.population(level, index)))
+                .density(orNull(aggregates.density(level, index)))
+                .descendants(descendants)
+                .build();
+    }
+
+    // The three sources are independent tables, so they are read concurrently, each in its own read-only transaction
+    private WilayahAggregates.Measures measure(WilayahTree tree, String kodePrefix) throws InterruptedException {
+        WilayahAggregates.Measures measures = new WilayahAggregates.Measures(tree);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> reads = List.of(
+                    executor.submit(() -> readOnly.executeWithoutResult(status ->
+                            wilayahStatsRepository.streamAreas(AdminLevel.KECAMATAN, kodePrefix, measures::putArea))),
+                    executor.submit(() -> readOnly.executeWithoutResult(status ->
+                            wilayahStatsRepository.streamAreas(AdminLevel.DESA, kodePrefix, measures::putArea))),
+                    executor.submit(() -> readOnly.executeWithoutResult(status ->
+                            wilayahStatsRepository.streamPopulation(kodePrefix, measures::putPopulation))));
+            for (Future<?> read : reads) {
+                read.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Measuring wilayah under '" + kodePrefix + "' failed", e.getCause());
+        }
+        return measures;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,133 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.dto.WilayahSummary;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+
+import java.util.*;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 13.10
+ * To change this template use File | Settings | File Templates.
+ */
+public final class WilayahTree {
+
+    private static final AdminLevel[] LEVELS = AdminLevel.values();
+
+    // Immutable snapshot: one kode-sorted array per level, so the children of a kode are the
+    // contiguous range of the next level starting with "kode." and are found by binary search
+    private final String[][] kodes;
+    private final WilayahNode[][] nodes;
+
+    private WilayahTree(String[][] kodes, WilayahNode[][] nodes) {
+        this.kodes = kodes;
+        this.nodes = nodes;
+    }
+
+    public static WilayahTree build(Collection<? extends WilayahSummary> rows) {
+        List<List<WilayahNode>> byLevel = new ArrayList<>();
+        for (int i = 0; i < LEVELS.length; i++) {
+            byLevel.add(new ArrayList<>());
+        }
+        for (WilayahSummary row : rows) {
+            if (row.getKode() == null) continue;
+            AdminLevel.ofKode(row.getKode()).ifPresent(level -> byLevel.get(level.ordinal())
+                    .add(new WilayahNode(row.getKode(), row.getNama(), row.getLat(), row.getLng(), level)));
+        }
+
+        String[][] kodes = new String[LEVELS.length][];
+        WilayahNode[][] nodes = new WilayahNode[LEVELS.length][];
+        for (int i = 0; i < LEVELS.length; i++) {
+            List<WilayahNode> levelNodes = byLevel.get(i);
+            levelNodes.sort(Comparator.comparing(WilayahNode::getKode));
+            // Drop duplicate kodes, keeping the first row
+            List<WilayahNode> unique = new ArrayList<>(levelNodes.size());
+            for (WilayahNode node : levelNodes) {
+                if (unique.isEmpty() || !unique.getLast().getKode().equals(node.getKode())) {
+                    unique.add(node);
+                }
+            }
+            nodes[i] = unique.toArray(new WilayahNode[0]);
+            kodes[i] = new String[nodes[i].length];
+            for (int j = 0; j < nodes[i].length; j++) {
+                kodes[i][j] = nodes[i][j].getKode();
+            }
+        }
+        return new WilayahTree(kodes, nodes);
+    }
+
+    public int size(AdminLevel level) {
+        return kodes[level.ordinal()].length;
+    }
+
+    public int size() {
+        int total = 0;
+        for (String[] levelKodes : kodes) {
+            total += levelKodes.length;
+        }
+        return total;
+    }
+
+    /**
+     * Position of the kode in its level array, or -1 when it is unknown.
+     */
+    public int indexOf(String kode) {
+        Optional<AdminLevel> level = AdminLevel.ofKode(kode);
+        if (level.isEmpty()) return -1;
+        int index = Arrays.binarySearch(kodes[level.get().ordinal()], kode);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Half-open index range [from, to) of the children of parentKode in the childLevel array.
+     */
+    public int[] childRange(String parentKode, AdminLevel childLevel) {
+        String[] levelKodes = kodes[childLevel.ordinal()];
+        if (parentKode == null || parentKode.isEmpty()) {
+            return new int[]{0, levelKodes.length};
+        }
+        // '/' sorts right after '.', so [parent + ".", parent + "/") spans exactly the descendants
+        int from = lowerBound(levelKodes, parentKode + ".");
+        int to = lowerBound(levelKodes, parentKode + "/");
+        return new int[]{from, to};
+    }
+
+    public List<WilayahNode> children(String parentKode, AdminLevel childLevel) {
+        int[] range = childRange(parentKode, childLevel);
+        return Collections.unmodifiableList(Arrays.asList(nodes[childLevel.ordinal()]).subList(range[0], range[1]));
+    }
+
+    public List<WilayahNode> all(AdminLevel level) {
+        return Collections.unmodifiableList(Arrays.asList(nodes[level.ordinal()]));
+    }
+
+    public WilayahNode node(AdminLevel level, int index) {
+        return nodes[level.ordinal()][index];
+    }
+
+    public Optional<WilayahNode> find(String kode) {
+        int index = indexOf(kode);
+        if (index < 0) return Optional.empty();
+        return Optional.of(nodes[AdminLevel.ofKode(kode).orElseThrow().ordinal()][index]);
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
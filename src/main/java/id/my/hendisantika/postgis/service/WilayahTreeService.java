@@ -0,0 +1,86 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.WilayahSummary;
+import id.my.hendisantika.postgis.repository.WilayahLevel12Repository;
+import id.my.hendisantika.postgis.repository.WilayahLevel34Repository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 13.15
+ * To change this template use File | Settings | File Templates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WilayahTreeService {
+
+    private final WilayahLevel12Repository wilayahRepository;
+    private final WilayahLevel34Repository wilayahLevel34Repository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Tree and the indexes built from it, published together so a reader never pairs one build with another.
+     */
+    public record Snapshot(WilayahTree tree, WilayahSearchIndex searchIndex, CentroidIndex centroidIndex) {
+    }
+
+    public Optional<Snapshot> currentSnapshot() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    public Optional<WilayahTree> current() {
+        return currentSnapshot().map(Snapshot::tree);
+    }
+
+    public Optional<WilayahSearchIndex> currentSearchIndex() {
+        return currentSnapshot().map(Snapshot::searchIndex);
+    }
+
+    public Optional<CentroidIndex> currentCentroidIndex() {
+        return currentSnapshot().map(Snapshot::centroidIndex);
+    }
+
+    // Flyway has migrated the schema by the time the application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Loads a fresh tree and swaps it in atomically; readers keep using the old one until then.
+     */
+    public synchronized WilayahTree rebuild() {
+        long start = System.nanoTime();
+        try {
+            List<WilayahSummary> rows = new ArrayList<>(wilayahRepository.findAllProvinsiKabupatenSummaries());
+            rows.addAll(wilayahLevel34Repository.findAllKecamatanDesaSummaries());
+            WilayahTree built = WilayahTree.build(rows);
+            // The search index keeps its own node array, so it never disagrees with the tree it was built from
+            WilayahSearchIndex builtIndex = WilayahSearchIndex.build(built);
+            CentroidIndex builtCentroids = CentroidIndex.build(built);
+            snapshot.set(new Snapshot(built, builtIndex, builtCentroids));
+            log.info("Wilayah tree, search and centroid indexes built with {} nodes in {} ms",
+                    built.size(), (System.nanoTime() - start) / 1_000_000);
+            return built;
+        } catch (Exception e) {
+            log.error("Error building wilayah tree, list queries fall back to the database", e);
+            return current().orElse(null);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Materialized provinsi (level 1) and kabupaten/kota (level 2) boundaries.
+-- Rows are the ST_Union of the 2023 kecamatan geometries in idn_admbnda_adm3_2023 and are
+-- (re)built in the background by BoundaryStoreService, so reading a boundary is a primary key lookup.
+
+CREATE TABLE IF NOT EXISTS wilayah_boundary_1_2 (
+    kode         VARCHAR(13) PRIMARY KEY,
+    level        SMALLINT NOT NULL,
+    geom         GEOMETRY(MultiPolygon, 4326) NOT NULL,
+    geojson      TEXT NOT NULL,
+    refreshed_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_wilayah_boundary_1_2_geom ON wilayah_boundary_1_2 USING GIST (geom);
+CREATE INDEX IF NOT EXISTS idx_wilayah_boundary_1_2_level ON wilayah_boundary_1_2 (level);
+
+COMMENT ON TABLE wilayah_boundary_1_2 IS 'Precomputed provinsi/kabupaten boundaries (ST_Union of idn_admbnda_adm3_2023)';
@@ -0,0 +1,19 @@
+-- Topology-preserving simplified boundaries at fixed tolerances (see GeometryResolution).
+-- One row per kode and resolution for all four levels: levels 1-2 come from wilayah_boundary_1_2,
+-- level 3 from idn_admbnda_adm3_2023 and level 4 from all_villages_2023.
+-- The GeoJSON is pre-rendered with a coordinate precision matching the tolerance.
+-- Rows are (re)built in the background by BoundaryStoreService.
+
+CREATE TABLE IF NOT EXISTS wilayah_geometry_simplified (
+    kode       VARCHAR(20) NOT NULL,
+    level      SMALLINT NOT NULL,
+    resolution SMALLINT NOT NULL,
+    geom       GEOMETRY(Geometry, 4326) NOT NULL,
+    geojson    TEXT NOT NULL,
+    PRIMARY KEY (kode, resolution)
+);
+
+CREATE INDEX IF NOT EXISTS idx_wilayah_geometry_simplified_geom ON wilayah_geometry_simplified USING GIST (geom);
+CREATE INDEX IF NOT EXISTS idx_wilayah_geometry_simplified_level ON wilayah_geometry_simplified (level, resolution);
+
+COMMENT ON TABLE wilayah_geometry_simplified IS 'ST_SimplifyPreserveTopology boundaries per kode at fixed tolerances';
@@ -0,0 +1,36 @@
+-- One materialized-path hierarchy over all four levels, so subtree and ancestor lookups are a single GiST scan
+-- instead of LENGTH(kode) + LIKE filters split over wilayah_level_1_2 and wilayah_level_3_4.
+-- Kode labels are digits joined by dots, which is already valid ltree syntax ('32.73.01.1001' has nlevel 4).
+-- Data migrations that change either source table must end with
+--   REFRESH MATERIALIZED VIEW CONCURRENTLY wilayah_hierarchy;
+-- POST /admin/hierarchy/rebuild refreshes it as well.
+
+CREATE EXTENSION IF NOT EXISTS ltree;
+
+DROP MATERIALIZED VIEW IF EXISTS wilayah_hierarchy;
+
+CREATE MATERIALIZED VIEW wilayah_hierarchy AS
+SELECT w.kode,
+       w.nama,
+       CAST(CASE WHEN length(w.kode) = 2 THEN 1 ELSE 2 END AS SMALLINT) AS level,
+       text2ltree(w.kode) AS path,
+       w.lat,
+       w.lng
+FROM wilayah_level_1_2 w
+WHERE length(w.kode) IN (2, 5)
+UNION ALL
+SELECT w.kode,
+       w.nama,
+       CAST(w.level AS SMALLINT) AS level,
+       text2ltree(w.kode) AS path,
+       w.lat,
+       w.lng
+FROM wilayah_level_3_4 w
+WHERE w.level IN (3, 4);
+
+-- Unique index is required for REFRESH ... CONCURRENTLY
+CREATE UNIQUE INDEX IF NOT EXISTS idx_wilayah_hierarchy_kode ON wilayah_hierarchy (kode);
+-- Serves both path <@ root (subtree) and path @> node (ancestors)
+CREATE INDEX IF NOT EXISTS idx_wilayah_hierarchy_path ON wilayah_hierarchy USING GIST (path);
+
+COMMENT ON MATERIALIZED VIEW wilayah_hierarchy IS 'Provinsi to desa as ltree paths built from kode';
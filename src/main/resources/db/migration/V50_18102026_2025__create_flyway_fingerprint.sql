@@ -0,0 +1,12 @@
+-- Fingerprint of the migration scripts as of the last successful migrate. With
+-- wilayah.startup.skip-unchanged-migrations a start whose scripts hash to the same value skips Flyway's
+-- validate and migrate, which otherwise re-reads and checksums every script on every start.
+
+CREATE TABLE IF NOT EXISTS flyway_fingerprint
+(
+    id          SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    fingerprint TEXT        NOT NULL,
+    recorded_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE flyway_fingerprint IS 'SHA-256 over the migration scripts applied by the last successful migrate';
@@ -8,12 +8,79 @@ L.tileLayer('https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png', {
 
 const markersLayer = L.layerGroup().addTo(map);
 const boundaryLayer = L.layerGroup().addTo(map);
+const childrenLayer = L.layerGroup().addTo(map);
+
+// Kecamatan/desa boundaries as vector tiles; the server picks the level from the zoom
+const TILE_MIN_ZOOM = 7;
+const TILE_MAX_ZOOM = 14;
+const tileStyle = {
+    weight: 1,
+    color: '#555555',
+    fill: true,
+    fillOpacity: 0.05
+};
+
+if (L.vectorGrid) {
+    const wilayahTiles = L.vectorGrid.protobuf('/tiles/auto/{z}/{x}/{y}.mvt', {
+        minZoom: TILE_MIN_ZOOM,
+        maxNativeZoom: TILE_MAX_ZOOM,
+        maxZoom: 18,
+        interactive: true,
+        rendererFactory: L.canvas.tile,
+        vectorTileLayerStyles: {
+            kecamatan: tileStyle,
+            desa: tileStyle
+        },
+        getFeatureId: function(feature) { return feature.properties.kode; }
+    }).on('click', function(e) {
+        if (e.layer && e.layer.properties && e.layer.properties.kode) {
+            loadDetail(e.layer.properties.kode);
+        }
+    });
+
+    L.control.layers(null, {'Batas Kecamatan/Desa': wilayahTiles}, {collapsed: false}).addTo(map);
+}
+
+// Outlines of whatever is in view; the server picks provinsi down to desa from the zoom
+const viewportLayer = L.layerGroup().addTo(map);
+var viewportController = null;
+
+function loadViewport() {
+    var bounds = map.getBounds();
+    var bbox = [
+        Math.max(bounds.getWest(), -180), Math.max(bounds.getSouth(), -85),
+        Math.min(bounds.getEast(), 180), Math.min(bounds.getNorth(), 85)
+    ].join(',');
+    if (viewportController) {
+        viewportController.abort();
+    }
+    viewportController = new AbortController();
+    fetch('/wilayah/api/viewport?bbox=' + bbox + '&zoom=' + Math.round(map.getZoom()), {signal: viewportController.signal})
+        .then(function(response) { return response.ok ? response.json() : null; })
+        .then(function(collection) {
+            if (!collection) return;
+            viewportLayer.clearLayers();
+            L.geoJSON(collection, {
+                style: {color: '#777777', weight: 1, fillOpacity: 0},
+                onEachFeature: function(feature, layer) {
+                    layer.bindTooltip(feature.properties.nama || feature.properties.kode);
+                    layer.on('click', function() { loadDetail(feature.properties.kode); });
+                }
+            }).addTo(viewportLayer);
+        })
+        .catch(function(error) {
+            if (error.name !== 'AbortError') console.error('Error loading viewport:', error);
+        });
+}
+
+map.on('moveend', loadViewport);
 
 // Handle provinsi selection
 function handleProvinsiChange(kode) {
     console.log('Province selected:', kode);
     if (kode) {
         loadDetail(kode);
+        loadChildBoundaries(kode, 2);
 
         if (typeof htmx !== 'undefined') {
             htmx.ajax('GET', '/wilayah/kabupaten-select/' + kode, {
@@ -30,6 +97,7 @@ function handleProvinsiChange(kode) {
 function handleKabupatenChange(kode) {
     if (kode) {
         loadDetail(kode);
+        loadChildBoundaries(kode, 3);
 
         if (typeof htmx !== 'undefined') {
             htmx.ajax('GET', '/wilayah/kecamatan-select/' + kode, {
@@ -87,73 +155,157 @@ function resetDesaSelect() {
         '</select>';
 }
 
-// Load detail for selected wilayah
+// Zoom the map ends up at for each level, used to request a matching simplified boundary
+const BOUNDARY_ZOOM = {2: 7, 5: 9, 8: 11, 13: 13};
+
+// Load detail panel and boundary for the selected wilayah with one request
 function loadDetail(kode) {
     if (kode) {
-        // Load detail panel
-        if (typeof htmx !== 'undefined') {
-            htmx.ajax('GET', '/wilayah/detail/' + kode, {target: '#detail-panel'});
-        }
+        var zoom = BOUNDARY_ZOOM[kode.length] || map.getZoom();
+        fetch('/wilayah/detail-boundary/' + kode + '?zoom=' + zoom)
+            .then(function(response) { return response.text(); })
+            .then(function(html) {
+                var panel = document.getElementById('detail-panel');
+                panel.innerHTML = html;
+                if (typeof htmx !== 'undefined') {
+                    htmx.process(panel);
+                }
 
-        // Load boundaries
-        fetch('/wilayah/api/boundary/' + kode)
-            .then(function(response) { return response.json(); })
-            .then(function(data) {
                 markersLayer.clearLayers();
                 boundaryLayer.clearLayers();
-
-                // Add marker if coordinates available
-                if (data.lat && data.lng) {
-                    L.marker([data.lat, data.lng])
-                        .bindPopup('<b>' + data.nama + '</b><br>Kode: ' + data.kode)
-                        .addTo(markersLayer);
+                var embedded = document.getElementById('boundary-data');
+                if (embedded) {
+                    showBoundary(JSON.parse(embedded.textContent));
                 }
+            })
+            .catch(function(error) { console.error('Error loading detail:', error); });
+    }
+}
+
+// Boundary arrives as a GeoJSON Feature with the geometry embedded as-is
+function showBoundary(feature) {
+    var data = feature.properties;
 
-                // Display boundary if available
-                if (data.coordinates) {
-                    try {
-                        var parsed = JSON.parse(data.coordinates);
-                        var layer;
-
-                        if (parsed.type && parsed.coordinates) {
-                            // GeoJSON format from PostGIS ST_AsGeoJSON
-                            layer = L.geoJSON(parsed, {
-                                style: {
-                                    color: '#3388ff',
-                                    fillColor: '#3388ff',
-                                    fillOpacity: 0.2,
-                                    weight: 2
-                                }
-                            })
-                            .bindPopup('<b>' + data.nama + '</b><br>' + data.level)
-                            .addTo(boundaryLayer);
-                        } else if (Array.isArray(parsed)) {
-                            // Coordinate array from path field
-                            layer = L.polygon(parsed, {
-                                color: '#3388ff',
-                                fillColor: '#3388ff',
-                                fillOpacity: 0.2,
-                                weight: 2
-                            })
-                            .bindPopup('<b>' + data.nama + '</b><br>' + data.level)
-                            .addTo(boundaryLayer);
-                        }
-
-                        if (layer) {
-                            map.fitBounds(layer.getBounds(), {padding: [50, 50]});
-                        }
-                    } catch (e) {
-                        console.error('Error parsing boundary:', e);
-                        if (data.lat && data.lng) {
-                            map.setView([data.lat, data.lng], 10);
-                        }
-                    }
-                } else if (data.lat && data.lng) {
-                    map.setView([data.lat, data.lng], 10);
+    // Add marker if coordinates available
+    if (data.lat && data.lng) {
+        L.marker([data.lat, data.lng])
+            .bindPopup('<b>' + data.nama + '</b><br>Kode: ' + data.kode)
+            .addTo(markersLayer);
+    }
+
+    var style = {
+        color: '#3388ff',
+        fillColor: '#3388ff',
+        fillOpacity: 0.2,
+        weight: 2
+    };
+    var layer;
+    if (feature.geometry) {
+        layer = L.geoJSON(feature, {style: style});
+    } else if (Array.isArray(data.path)) {
+        // Coordinate array from path field
+        layer = L.polygon(data.path, style);
+    }
+
+    if (layer) {
+        layer.bindPopup('<b>' + data.nama + '</b><br>' + data.level).addTo(boundaryLayer);
+        map.fitBounds(layer.getBounds(), {padding: [50, 50]});
+    } else if (data.lat && data.lng) {
+        map.setView([data.lat, data.lng], 10);
+    }
+}
+
+// Outline all children of a wilayah with one TopoJSON request; shared borders arrive once
+const CHILD_ZOOM = {2: 9, 3: 11, 4: 13};
+
+function loadChildBoundaries(kode, childLevel) {
+    fetch('/wilayah/api/topology?parent=' + kode + '&childLevel=' + childLevel + '&zoom=' + CHILD_ZOOM[childLevel])
+        .then(function(response) { return response.json(); })
+        .then(function(topology) {
+            childrenLayer.clearLayers();
+            L.geoJSON(topologyToGeoJSON(topology, 'wilayah'), {
+                style: {color: '#ff7800', weight: 1, fillOpacity: 0},
+                onEachFeature: function(feature, layer) {
+                    layer.bindTooltip(feature.properties.nama || feature.properties.kode);
+                    layer.on('click', function() { loadDetail(feature.properties.kode); });
                 }
-            })
-            .catch(function(error) { console.error('Error loading boundaries:', error); });
+            }).addTo(childrenLayer);
+        })
+        .catch(function(error) { console.error('Error loading child boundaries:', error); });
+}
+
+// Minimal TopoJSON decoder for the MultiPolygon collections served by /wilayah/api/topology
+function topologyToGeoJSON(topology, name) {
+    var scale = topology.transform.scale;
+    var translate = topology.transform.translate;
+    // Undo the delta encoding and quantization of every arc once
+    var arcs = topology.arcs.map(function(arc) {
+        var x = 0, y = 0;
+        return arc.map(function(delta) {
+            x += delta[0];
+            y += delta[1];
+            return [x * scale[0] + translate[0], y * scale[1] + translate[1]];
+        });
+    });
+
+    function ring(references) {
+        var points = [];
+        references.forEach(function(reference) {
+            var arc = reference < 0 ? arcs[~reference].slice().reverse() : arcs[reference];
+            // Consecutive arcs share their end point
+            for (var i = points.length > 0 ? 1 : 0; i < arc.length; i++) {
+                points.push(arc[i]);
+            }
+        });
+        return points;
     }
+
+    return {
+        type: 'FeatureCollection',
+        features: topology.objects[name].geometries.map(function(geometry) {
+            return {
+                type: 'Feature',
+                id: geometry.id,
+                properties: geometry.properties,
+                geometry: geometry.type ? {
+                    type: 'MultiPolygon',
+                    coordinates: geometry.arcs.map(function(polygon) { return polygon.map(ring); })
+                } : null
+            };
+        })
+    };
+}
+
+// Type-ahead search across all levels
+var searchTimer = null;
+
+function handleSearchInput(keyword) {
+    clearTimeout(searchTimer);
+    var list = document.getElementById('search-results');
+    if (!keyword || keyword.trim().length === 0) {
+        list.style.display = 'none';
+        list.innerHTML = '';
+        return;
+    }
+    searchTimer = setTimeout(function() {
+        fetch('/wilayah/api/search?size=10&q=' + encodeURIComponent(keyword))
+            .then(function(response) { return response.json(); })
+            .then(function(page) {
+                list.innerHTML = '';
+                page.results.forEach(function(node) {
+                    var item = document.createElement('li');
+                    item.style.cursor = 'pointer';
+                    item.textContent = node.nama + ' (' + node.level + ', ' + node.kode + ')';
+                    item.onclick = function() {
+                        list.style.display = 'none';
+                        loadDetail(node.kode);
+                    };
+                    list.appendChild(item);
+                });
+                list.style.display = page.results.length > 0 ? 'block' : 'none';
+            })
+            .catch(function(error) { console.error('Error searching wilayah:', error); });
+    }, 150);
 }
 
 // Reset map view
@@ -161,6 +313,7 @@ function resetMapView() {
     map.setView([-2.5489, 118.0149], 5);
     markersLayer.clearLayers();
     boundaryLayer.clearLayers();
+    childrenLayer.clearLayers();
 
     // Reset all dropdowns
     var provinsiSelect = document.getElementById('provinsi-select');
@@ -200,3 +353,4 @@ function showProvinces() {
 
 // Load provinces on start
 showProvinces();
+loadViewport();
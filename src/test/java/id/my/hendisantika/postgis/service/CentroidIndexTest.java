@@ -0,0 +1,151 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.WilayahSummary;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.40
+ * To change this template use File | Settings | File Templates.
+ */
+class CentroidIndexTest {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private record Row(String kode, String nama, Double lat, Double lng) implements WilayahSummary {
+        @Override
+        public String getKode() {
+            return kode;
+        }
+
+        @Override
+        public String getNama() {
+            return nama;
+        }
+
+        @Override
+        public Double getLat() {
+            return lat;
+        }
+
+        @Override
+        public Double getLng() {
+            return lng;
+        }
+    }
+
+    @Test
+    void nearestMatchesBruteForceScan() {
+        Random random = new Random(42);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            points.add(randomPoint(random));
+        }
+        // Either side of the antimeridian and around both poles
+        points.add(new double[]{0.0, 179.95});
+        points.add(new double[]{0.0, -179.95});
+        points.add(new double[]{-16.5, 179.99});
+        points.add(new double[]{-16.5, -179.99});
+        points.add(new double[]{89.999, 0.0});
+        points.add(new double[]{89.999, 120.0});
+        points.add(new double[]{89.999, -120.0});
+        points.add(new double[]{-89.999, 45.0});
+        points.add(new double[]{-89.999, -135.0});
+        CentroidIndex index = CentroidIndex.build(WilayahTree.build(rows(points)));
+        assertEquals(points.size(), index.size(AdminLevel.DESA));
+
+        List<double[]> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            queries.add(randomPoint(random));
+        }
+        queries.add(new double[]{0.0, 180.0});
+        queries.add(new double[]{0.0, -180.0});
+        queries.add(new double[]{-16.5, 179.999});
+        queries.add(new double[]{90.0, 0.0});
+        queries.add(new double[]{-90.0, 0.0});
+        queries.add(new double[]{89.9, -60.0});
+
+        for (double[] query : queries) {
+            for (int k : new int[]{1, 5, 25}) {
+                List<CentroidIndex.Neighbor> nearest = index.nearest(AdminLevel.DESA, query[0], query[1], k);
+                double[] expected = points.stream()
+                        .mapToDouble(point -> greatCircle(query, point))
+                        .sorted()
+                        .limit(k)
+                        .toArray();
+                assertEquals(k, nearest.size());
+                for (int i = 0; i < k; i++) {
+                    CentroidIndex.Neighbor neighbor = nearest.get(i);
+                    // Ties at the poles may come back in any order, so distances are compared, not kodes
+                    assertEquals(expected[i], neighbor.distanceMeters(), 0.01);
+                    double[] found = {neighbor.node().getLat(), neighbor.node().getLng()};
+                    assertEquals(neighbor.distanceMeters(), greatCircle(query, found), 0.01);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nearestWrapsAroundTheAntimeridian() {
+        List<double[]> points = List.of(new double[]{0.0, -179.95}, new double[]{0.0, 179.0}, new double[]{0.0, 170.0});
+        CentroidIndex index = CentroidIndex.build(WilayahTree.build(rows(points)));
+
+        List<CentroidIndex.Neighbor> nearest = index.nearest(AdminLevel.DESA, 0.0, 179.95, 1);
+
+        assertEquals(-179.95, nearest.getFirst().node().getLng(), 0);
+        assertTrue(nearest.getFirst().distanceMeters() < 12_000);
+    }
+
+    @Test
+    void nearestReturnsEveryNodeWhenKExceedsTheLevel() {
+        List<double[]> points = List.of(new double[]{-6.2, 106.8}, new double[]{-7.25, 112.75}, new double[]{3.59, 98.67});
+        CentroidIndex index = CentroidIndex.build(WilayahTree.build(rows(points)));
+
+        List<CentroidIndex.Neighbor> nearest = index.nearest(AdminLevel.DESA, -6.9, 107.6, 10);
+
+        assertEquals(3, nearest.size());
+        assertEquals(-6.2, nearest.getFirst().node().getLat(), 0);
+        assertEquals(0, index.nearest(AdminLevel.PROVINSI, -6.9, 107.6, 10).size());
+    }
+
+    // Uniform on the sphere
+    private static double[] randomPoint(Random random) {
+        double lat = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+        double lng = 360 * random.nextDouble() - 180;
+        return new double[]{lat, lng};
+    }
+
+    private static List<Row> rows(List<double[]> points) {
+        List<Row> rows = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            String kode = String.format(Locale.ROOT, "32.01.01.%04d", i + 1);
+            rows.add(new Row(kode, "Desa " + (i + 1), points.get(i)[0], points.get(i)[1]));
+        }
+        return rows;
+    }
+
+    // Haversine, independent of the chord distance the index works with
+    private static double greatCircle(double[] a, double[] b) {
+        double phi1 = Math.toRadians(a[0]);
+        double phi2 = Math.toRadians(b[0]);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(b[1] - a[1]);
+        double h = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+}
@@ -0,0 +1,179 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.config.WilayahProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.45
+ * To change this template use File | Settings | File Templates.
+ */
+class SingleFlightTest {
+
+    private static final int WAITERS = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallersShareOneComputationPerKey() throws Exception {
+        SingleFlight singleFlight = singleFlight(4, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computationsA = new AtomicInteger();
+        AtomicInteger computationsB = new AtomicInteger();
+
+        CompletableFuture<String> leaderA = leader(singleFlight, "a", computationsA, release, () -> "result-a");
+        CompletableFuture<String> leaderB = leader(singleFlight, "b", computationsB, release, () -> "result-b");
+        List<CompletableFuture<String>> waitersA = waiters(singleFlight, "a", computationsA);
+        List<CompletableFuture<String>> waitersB = waiters(singleFlight, "b", computationsB);
+        release.countDown();
+
+        assertEquals("result-a", leaderA.get(5, TimeUnit.SECONDS));
+        assertEquals("result-b", leaderB.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<String> waiter : waitersA) {
+            assertEquals("result-a", waiter.get(5, TimeUnit.SECONDS));
+        }
+        for (CompletableFuture<String> waiter : waitersB) {
+            assertEquals("result-b", waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, computationsA.get());
+        assertEquals(1, computationsB.get());
+        assertEquals(2, calls("leader"), 0);
+        assertEquals(2 * WAITERS, calls("shared"), 0);
+    }
+
+    @Test
+    void waitersSeeTheLeadersFailure() throws Exception {
+        SingleFlight singleFlight = singleFlight(4, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("query failed");
+
+        CompletableFuture<String> leader = leader(singleFlight, "a", computations, release, () -> {
+            throw failure;
+        });
+        List<CompletableFuture<String>> waiters = waiters(singleFlight, "a", computations);
+        release.countDown();
+
+        assertSame(failure, cause(leader));
+        for (CompletableFuture<String> waiter : waiters) {
+            assertSame(failure, cause(waiter));
+        }
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void heavyQueryIsRejectedWhileThePermitsAreTaken() throws Exception {
+        SingleFlight singleFlight = singleFlight(1, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+
+        CompletableFuture<String> holder = leader(singleFlight, "a", computations, release, () -> "result-a");
+
+        assertThrows(HeavyQueryBusyException.class, () -> singleFlight.execute("union", "b", true, () -> {
+            computations.incrementAndGet();
+            return "result-b";
+        }));
+        assertEquals(1, computations.get());
+        assertEquals(1, calls("rejected"), 0);
+
+        // Once the permit is back the same query runs
+        release.countDown();
+        assertEquals("result-a", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("result-b", singleFlight.execute("union", "b", true, () -> "result-b"));
+    }
+
+    private SingleFlight singleFlight(int maxHeavyQueries, Duration maxWait) {
+        WilayahProperties properties = new WilayahProperties();
+        properties.getSingleFlight().setMaxHeavyQueries(maxHeavyQueries);
+        properties.getSingleFlight().setMaxWait(maxWait);
+        return new SingleFlight(properties, meterRegistry);
+    }
+
+    // Heavy computation for key that has started, holding its permit, and blocks until release
+    private static CompletableFuture<String> leader(SingleFlight singleFlight, String key, AtomicInteger computations,
+                                                    CountDownLatch release, Supplier<String> result)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> leader = run(() -> singleFlight.execute("union", key, true, () -> {
+            computations.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return result.get();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    // Callers for the same key, returned once every one of them is blocked on the leader's flight
+    private static List<CompletableFuture<String>> waiters(SingleFlight singleFlight, String key,
+                                                           AtomicInteger computations) throws InterruptedException {
+        List<CompletableFuture<String>> waiters = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            CompletableFuture<String> waiter = new CompletableFuture<>();
+            Thread thread = new Thread(() -> complete(waiter, () -> singleFlight.execute("union", key, true, () -> {
+                computations.incrementAndGet();
+                return "duplicate";
+            })));
+            thread.start();
+            waiters.add(waiter);
+            threads.add(thread);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(Thread.State.TIMED_WAITING, thread.getState());
+        }
+        return waiters;
+    }
+
+    private static CompletableFuture<String> run(Supplier<String> call) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        new Thread(() -> complete(future, call)).start();
+        return future;
+    }
+
+    private static void complete(CompletableFuture<String> future, Supplier<String> call) {
+        try {
+            future.complete(call.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static Throwable cause(CompletableFuture<String> future) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.get(SingleFlight.CALLS).tags("query", "union", "outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,134 @@
+package id.my.hendisantika.postgis.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.35
+ * To change this template use File | Settings | File Templates.
+ */
+class TopologyBuilderTest {
+
+    @Test
+    void sharedBorderBecomesOneArcReferencedWithOppositeSigns() {
+        TopologyBuilder builder = new TopologyBuilder(3);
+        builder.add(feature("A", new double[][]{{0, 0}, {1, 0}, {1, 1}, {0, 1}, {0, 0}}));
+        builder.add(feature("B", new double[][]{{1, 0}, {2, 0}, {2, 1}, {1, 1}, {1, 0}}));
+
+        TopologyBuilder.Topology topology = builder.build(0);
+
+        int[] a = ring(topology, 0);
+        int[] b = ring(topology, 1);
+        List<Integer> shared = new ArrayList<>();
+        for (int ra : a) {
+            for (int rb : b) {
+                if (index(ra) == index(rb)) {
+                    shared.add(ra);
+                    assertEquals(ra, ~rb, "both sides must walk the border in opposite directions");
+                }
+            }
+        }
+        assertEquals(1, shared.size());
+        // Each outer edge chain plus the border, stored once
+        assertEquals(3, topology.arcs().size());
+
+        double[][] border = decode(topology, index(shared.getFirst()));
+        assertEquals(2, border.length);
+        assertEquals(1.0, border[0][0], 1e-9);
+        assertEquals(1.0, border[1][0], 1e-9);
+    }
+
+    @Test
+    void arcEndpointsSurviveSimplification() {
+        // The border zigzags well inside the tolerance, so simplification straightens it
+        double[][] border = {{2, 0}, {2.1, 1}, {1.9, 2}, {2.1, 3}, {2, 4}};
+        TopologyBuilder builder = new TopologyBuilder(10_000);
+        builder.add(feature("A", new double[][]{{0, 0}, border[0], border[1], border[2], border[3], border[4], {0, 4}, {0, 0}}));
+        builder.add(feature("B", new double[][]{{2, 0}, {4, 0}, {4, 4}, border[4], border[3], border[2], border[1], border[0]}));
+
+        TopologyBuilder.Topology exact = builder.build(0);
+        TopologyBuilder.Topology simplified = builder.build(0.5);
+
+        assertEquals(exact.arcs().size(), simplified.arcs().size());
+        int removed = 0;
+        for (int i = 0; i < exact.arcs().size(); i++) {
+            double[][] before = decode(exact, i);
+            double[][] after = decode(simplified, i);
+            assertArrayEquals(before[0], after[0], 1e-9);
+            assertArrayEquals(before[before.length - 1], after[after.length - 1], 1e-9);
+            removed += before.length - after.length;
+        }
+        assertEquals(3, removed);
+    }
+
+    @Test
+    void quantizedDeltasDecodeBackToInput() {
+        double[][] ring = {{106.8123, -6.2087}, {107.0311, -6.1502}, {107.2049, -6.3977}, {106.9876, -6.5031},
+                {106.7412, -6.4128}, {106.8123, -6.2087}};
+        TopologyBuilder builder = new TopologyBuilder(100_000);
+        builder.add(feature("A", ring));
+
+        TopologyBuilder.Topology topology = builder.build(0);
+
+        assertEquals(1, topology.arcs().size());
+        double[][] decoded = decode(topology, index(ring(topology, 0)[0]));
+        int n = ring.length - 1;
+        assertEquals(n + 1, decoded.length);
+        assertArrayEquals(decoded[0], decoded[n], 0);
+
+        // The closed arc may start anywhere on the ring but keeps its direction
+        int offset = -1;
+        for (int i = 0; i < n && offset < 0; i++) {
+            if (Math.abs(ring[i][0] - decoded[0][0]) < 1e-6 && Math.abs(ring[i][1] - decoded[0][1]) < 1e-6) {
+                offset = i;
+            }
+        }
+        assertTrue(offset >= 0);
+        double halfCellX = topology.scale()[0] / 2;
+        double halfCellY = topology.scale()[1] / 2;
+        for (int i = 0; i < n; i++) {
+            double[] expected = ring[(offset + i) % n];
+            assertEquals(expected[0], decoded[i][0], halfCellX + 1e-12);
+            assertEquals(expected[1], decoded[i][1], halfCellY + 1e-12);
+        }
+    }
+
+    private static TopologyBuilder.Feature feature(String kode, double[][] ring) {
+        List<double[][]> polygon = new ArrayList<>();
+        polygon.add(ring);
+        return new TopologyBuilder.Feature(kode, kode, List.of(polygon));
+    }
+
+    private static int[] ring(TopologyBuilder.Topology topology, int feature) {
+        return topology.features().get(feature).polygons().getFirst().getFirst();
+    }
+
+    private static int index(int reference) {
+        return reference < 0 ? ~reference : reference;
+    }
+
+    private static double[][] decode(TopologyBuilder.Topology topology, int arc) {
+        int[] deltas = topology.arcs().get(arc);
+        double[][] points = new double[deltas.length / 2][];
+        int x = 0, y = 0;
+        for (int i = 0; i < points.length; i++) {
+            x += deltas[2 * i];
+            y += deltas[2 * i + 1];
+            points[i] = new double[]{x * topology.scale()[0] + topology.translate()[0],
+                    y * topology.scale()[1] + topology.translate()[1]};
+        }
+        return points;
+    }
+}
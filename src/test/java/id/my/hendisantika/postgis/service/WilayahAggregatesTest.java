@@ -0,0 +1,168 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.WilayahSummary;
+import id.my.hendisantika.postgis.entity.AdminLevel;
+import id.my.hendisantika.postgis.entity.ClassBreakMethod;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.50
+ * To change this template use File | Settings | File Templates.
+ */
+class WilayahAggregatesTest {
+
+    private static final WilayahTree TREE = WilayahTree.build(List.of(
+            row("31"), row("32"),
+            row("32.01"), row("32.02"),
+            row("32.01.01"), row("32.01.02"), row("32.02.01"),
+            row("32.01.01.1001"), row("32.01.01.1002"), row("32.02.01.2001"), row("32.02.01.2002")));
+
+    private record Row(String kode) implements WilayahSummary {
+        @Override
+        public String getKode() {
+            return kode;
+        }
+
+        @Override
+        public String getNama() {
+            return "Wilayah " + kode;
+        }
+
+        @Override
+        public Double getLat() {
+            return null;
+        }
+
+        @Override
+        public Double getLng() {
+            return null;
+        }
+    }
+
+    @Test
+    void measuredValuesOverrideChildSumsAndNanIsUnknown() {
+        WilayahAggregates aggregates = WilayahAggregates.build(baseMeasures());
+
+        // Measured kecamatan area wins over the 3 km² of its only measured desa
+        assertEquals(10, area(aggregates, "32.01.01"));
+        assertEquals(15, area(aggregates, "32.01"));
+        // The desa without an area does not turn the sum into NaN
+        assertEquals(7, area(aggregates, "32.02.01"));
+        assertEquals(22, area(aggregates, "32"));
+        assertEquals(Double.NaN, area(aggregates, "32.01.01.1002"));
+
+        assertEquals(1700, population(aggregates, "32"));
+        assertEquals(Double.NaN, population(aggregates, "32.01.01"));
+        assertEquals(1000 / 15.0, aggregates.density(AdminLevel.KABUPATEN, TREE.indexOf("32.01")), 1e-9);
+
+        // Population without any area: known on its own, density stays unknown
+        assertEquals(300, population(aggregates, "31"));
+        assertEquals(Double.NaN, area(aggregates, "31"));
+        assertEquals(Double.NaN, aggregates.density(AdminLevel.PROVINSI, TREE.indexOf("31")));
+
+        assertEquals(4, aggregates.descendants(AdminLevel.PROVINSI, TREE.indexOf("32"), AdminLevel.DESA));
+        assertEquals(0, aggregates.descendants(AdminLevel.PROVINSI, TREE.indexOf("31"), AdminLevel.KABUPATEN));
+    }
+
+    @Test
+    void withSubtreeMatchesFullBuild() {
+        WilayahAggregates base = WilayahAggregates.build(baseMeasures());
+
+        // 32.01 measured again: the kecamatan area of 32.01.01 is gone, so it falls back to its desa
+        WilayahAggregates.Measures subtree = new WilayahAggregates.Measures(TREE);
+        subtree.putArea("32.01.02", 15);
+        subtree.putArea("32.01.01.1001", 3);
+        subtree.putArea("32.01.01.1002", 4);
+        subtree.putPopulation("32.01", 1200);
+        WilayahAggregates updated = base.withSubtree("32.01", subtree);
+
+        WilayahAggregates.Measures full = new WilayahAggregates.Measures(TREE);
+        full.putArea("32.01.02", 15);
+        full.putArea("32.01.01.1001", 3);
+        full.putArea("32.01.01.1002", 4);
+        full.putArea("32.02.01.2001", 7);
+        full.putPopulation("31", 300);
+        full.putPopulation("32.01", 1200);
+        full.putPopulation("32.02", 700);
+        WilayahAggregates expected = WilayahAggregates.build(full);
+
+        for (AdminLevel level : AdminLevel.values()) {
+            for (int i = 0; i < TREE.size(level); i++) {
+                assertEquals(expected.area(level, i), updated.area(level, i));
+                assertEquals(expected.population(level, i), updated.population(level, i));
+                assertEquals(expected.density(level, i), updated.density(level, i));
+            }
+        }
+        assertEquals(29, area(updated, "32"));
+        // The original is left untouched
+        assertEquals(22, area(base, "32"));
+        assertEquals(10, area(base, "32.01.01"));
+    }
+
+    @Test
+    void withSubtreeRejectsMeasuresOfAnotherTree() {
+        WilayahAggregates aggregates = WilayahAggregates.build(baseMeasures());
+        WilayahTree other = WilayahTree.build(List.of(row("32"), row("32.01")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregates.withSubtree("32.01", new WilayahAggregates.Measures(other)));
+    }
+
+    @Test
+    void quantileBreaksTakeTheLastValueOfEachClass() {
+        double[] tenValues = {7, 3, Double.NaN, 1, 10, 4, 2, 9, 5, 8, 6};
+        assertArrayEquals(new double[]{1, 2, 4, 6, 8, 10},
+                WilayahAggregates.classBreaks(tenValues, 5, ClassBreakMethod.QUANTILE));
+        // 7 values in 3 classes: the first class ends at index 7 / 3 - 1 = 1, the second at 14 / 3 - 1 = 3
+        assertArrayEquals(new double[]{1, 2, 4, 7},
+                WilayahAggregates.classBreaks(new double[]{1, 2, 3, 4, 5, 6, 7}, 3, ClassBreakMethod.QUANTILE));
+        // Fewer values than classes never index below 0
+        assertArrayEquals(new double[]{5, 5, 5, 5, 5},
+                WilayahAggregates.classBreaks(new double[]{5}, 4, ClassBreakMethod.QUANTILE));
+    }
+
+    @Test
+    void classBreaksOfEqualIntervalsAndUnknownValues() {
+        assertArrayEquals(new double[]{0, 2.5, 5, 7.5, 10},
+                WilayahAggregates.classBreaks(new double[]{10, 0, 3}, 4, ClassBreakMethod.EQUAL_INTERVAL));
+        assertEquals(0, WilayahAggregates.classBreaks(new double[]{Double.NaN}, 4, ClassBreakMethod.QUANTILE).length);
+        assertEquals(0, WilayahAggregates.classBreaks(new double[]{1, 2}, 0, ClassBreakMethod.EQUAL_INTERVAL).length);
+    }
+
+    // Kecamatan areas, one desa area below them, and populations on kabupaten and one empty provinsi
+    private static WilayahAggregates.Measures baseMeasures() {
+        WilayahAggregates.Measures measures = new WilayahAggregates.Measures(TREE);
+        measures.putArea("32.01.01", 10);
+        measures.putArea("32.01.02", 5);
+        measures.putArea("32.01.01.1001", 3);
+        measures.putArea("32.02.01.2001", 7);
+        measures.putPopulation("31", 300);
+        measures.putPopulation("32.01", 1000);
+        measures.putPopulation("32.02", 700);
+        return measures;
+    }
+
+    private static double area(WilayahAggregates aggregates, String kode) {
+        return aggregates.area(AdminLevel.ofKode(kode).orElseThrow(), TREE.indexOf(kode));
+    }
+
+    private static double population(WilayahAggregates aggregates, String kode) {
+        return aggregates.population(AdminLevel.ofKode(kode).orElseThrow(), TREE.indexOf(kode));
+    }
+
+    private static Row row(String kode) {
+        return new Row(kode);
+    }
+}
@@ -0,0 +1,105 @@
+package id.my.hendisantika.postgis.service;
+
+import id.my.hendisantika.postgis.dto.SearchPage;
+import id.my.hendisantika.postgis.dto.WilayahNode;
+import id.my.hendisantika.postgis.dto.WilayahSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : spring-boot-postgis
+ * User: hendisantika
+ * Email: hendisantika@gmail.com
+ * Telegram : @hendisantika34
+ * Date: 18/10/26
+ * Time: 21.55
+ * To change this template use File | Settings | File Templates.
+ */
+class WilayahSearchIndexTest {
+
+    private static final WilayahSearchIndex INDEX = WilayahSearchIndex.build(WilayahTree.build(List.of(
+            new Row("32", "Jawa Barat"),
+            new Row("32.04", "Bandung"),
+            new Row("32.06", "Tasikmalaya"),
+            new Row("32.17", "Bandung Barat"),
+            new Row("32.73", "Kota Bandung"),
+            new Row("32.04.01", "Margahayu"),
+            new Row("32.73.01", "Sukasari"),
+            new Row("32.04.01.2001", "Cibandung"),
+            new Row("32.73.01.1001", "Sukarasa"))));
+
+    private record Row(String kode, String nama) implements WilayahSummary {
+        @Override
+        public String getKode() {
+            return kode;
+        }
+
+        @Override
+        public String getNama() {
+            return nama;
+        }
+
+        @Override
+        public Double getLat() {
+            return null;
+        }
+
+        @Override
+        public Double getLng() {
+            return null;
+        }
+    }
+
+    @Test
+    void prefixMatchesRankAheadOfWordPrefixAndSubstring() {
+        // Name prefix, then word prefix, then the fragment inside "Cibandung"
+        assertEquals(List.of("32.04", "32.17", "32.73", "32.04.01.2001"), kodes("Band"));
+        // Exact match first, then the shorter prefix match
+        assertEquals(List.of("32.04", "32.17", "32.73", "32.04.01.2001"), kodes("bandung"));
+        assertEquals(List.of("32.73.01", "32.73.01.1001"), kodes("suka"));
+    }
+
+    @Test
+    void midWordFragmentsMatchAsSubstring() {
+        // Equal scores: higher admin level first, then the shorter name
+        assertEquals(List.of("32.04", "32.73", "32.17", "32.04.01.2001"), kodes("ndu"));
+        assertEquals(List.of("32.04", "32.73", "32.17", "32.04.01.2001"), kodes("nd"));
+        assertEquals(List.of("32.04.01"), kodes("gahay"));
+        assertEquals(List.of("32.06"), kodes("malay"));
+    }
+
+    @Test
+    void singleCharacterOnlyMatchesWordPrefixes() {
+        assertEquals(List.of("32.04", "32.17", "32", "32.73"), kodes("b"));
+    }
+
+    @Test
+    void multiWordQueries() {
+        assertEquals("32.73", kodes("kota band").getFirst());
+        assertEquals("32.17", kodes("Bandung  Barat!").getFirst());
+        assertEquals("32", kodes("jawa bar").getFirst());
+    }
+
+    @Test
+    void typosStillMatch() {
+        assertEquals(List.of("32.06"), kodes("tasikmalaja"));
+        assertEquals("32.04", kodes("bandunk").getFirst());
+    }
+
+    @Test
+    void pagesAndEmptyQueries() {
+        SearchPage second = INDEX.search("bandung", 1, 3);
+        assertEquals(4, second.getTotal());
+        assertEquals(List.of("32.04.01.2001"), second.getResults().stream().map(WilayahNode::getKode).toList());
+        assertEquals(0, INDEX.search(" - ", 0, 10).getTotal());
+        assertEquals(0, INDEX.search("bandung", Integer.MAX_VALUE, 10).getResults().size());
+    }
+
+    private static List<String> kodes(String query) {
+        return INDEX.search(query, 0, 20).getResults().stream().map(WilayahNode::getKode).toList();
+    }
+}